@@ -0,0 +1,198 @@
+package robo.bench;
+
+import java.util.Collections;
+import java.util.List;
+
+import robo.logger.Logger;
+import robo.model.ParallelRuleExecutor;
+import robo.model.PhysicalAgent;
+import robo.model.Rule;
+import robo.model.RuleContext;
+import robo.model.StatelessRule;
+import robo.model.WoTSystem;
+import robo.model.event.Event;
+import robo.model.event.EventListener;
+import robo.model.event.EventPriority;
+import robo.runtime.AgentRuntime;
+import robo.runtime.SimulationAgentRuntime;
+
+/**
+ * Measure the bytes allocated for each event processed by an agent in the
+ * steady state (i.e. after warm up). The agent has:
+ * 
+ * - a classic rule with a condition and a stateless rule, both emitting
+ * resulting events;
+ * 
+ * - a legacy rule returning lists of resulting events from both its
+ * do-actions and its then-actions (the lists are created once, so only the
+ * agent could allocate when merging them);
+ * 
+ * - a group of two isolated rules, executed in parallel by a
+ * <code>ParallelRuleExecutor</code> with two threads.
+ * 
+ * The resulting events are propagated to a listener. The expected result is
+ * zero bytes per event.
+ * 
+ * The agents are executed by a <code>SimulationAgentRuntime</code>, so their
+ * cycles run on the thread of the benchmark. The allocated bytes of all the
+ * threads (as given by <code>com.sun.management.ThreadMXBean</code>) are
+ * measured, so the ones allocated by the threads of the parallel executor are
+ * counted too. The events are sent to the agent before each measurement, so
+ * the mailbox nodes allocated by <code>on</code> are not counted.
+ * 
+ * Usage: <code>AllocationBenchmark [eventsPerRound [rounds]]</code> (by
+ * default 10000 events and 10 rounds, after 5 warm up rounds).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 10:04:52
+ * 
+ */
+public class AllocationBenchmark {
+  // the number of events processed in each round, if not specified
+  private static final int DEFAULT_EVENTS = 10000;
+  // the number of measured rounds, if not specified
+  private static final int DEFAULT_ROUNDS = 10;
+  // the number of rounds used to warm up
+  private static final int WARM_UP_ROUNDS = 5;
+
+  public static void main(String[] args) throws Exception {
+    Logger.LOG_LEVEL = Logger.LogLevelEnum.ERROR;
+    int events = args.length > 0 ? Integer.parseInt(args[0])
+        : AllocationBenchmark.DEFAULT_EVENTS;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1])
+        : AllocationBenchmark.DEFAULT_ROUNDS;
+    // the simulation runtime must be the default one before the agents exist
+    SimulationAgentRuntime runtime = new SimulationAgentRuntime();
+    AgentRuntime.setDefaultRuntime(runtime);
+    final ResultEvent result = new ResultEvent();
+    // the list returned by the legacy rule, created once
+    final List< Event< ?>> results = Collections
+        .< Event< ?>> singletonList(result);
+    final long[] received = new long[1];
+    WoTSystem agent = new WoTSystem("agent") {
+      @Override
+      public void initialize() {
+      }
+    };
+    ParallelRuleExecutor parallelRuleExecutor = new ParallelRuleExecutor(2);
+    agent.setParallelRuleExecutor(parallelRuleExecutor);
+    agent.addRule(new Rule< WoTSystem, InputEvent>() {
+      @Override
+      protected boolean checkCondition() {
+        return this.triggeringEvent.value % 2 == 0;
+      }
+
+      @Override
+      protected List< Event< ?>> executeThenActions() {
+        this.emit(result);
+        return null;
+      }
+    });
+    agent.addRule(new StatelessRule< WoTSystem, InputEvent>() {
+      @Override
+      protected void execute(RuleContext< WoTSystem, InputEvent> context) {
+        if (context.getEvent().value % 3 == 0) {
+          context.emit(result);
+        }
+      }
+    });
+    agent.addRule(new Rule< WoTSystem, InputEvent>() {
+      @Override
+      protected List< Event< ?>> executeDoActions() {
+        return this.triggeringEvent.value % 5 == 0 ? results : null;
+      }
+
+      @Override
+      protected boolean checkCondition() {
+        return this.triggeringEvent.value % 10 == 0;
+      }
+
+      @Override
+      protected List< Event< ?>> executeThenActions() {
+        return results;
+      }
+    });
+    for (int i = 0; i < 2; i++) {
+      agent.addRule(new Rule< WoTSystem, InputEvent>() {
+        @Override
+        protected boolean isIsolated() {
+          return true;
+        }
+
+        @Override
+        protected boolean checkCondition() {
+          return this.triggeringEvent.value % 7 == 0;
+        }
+
+        @Override
+        protected List< Event< ?>> executeThenActions() {
+          this.emit(result);
+          return null;
+        }
+      });
+    }
+    agent.addListenerForEventType(ResultEvent.class, new EventListener() {
+      @Override
+      public void on(Event< ?> event) {
+        received[0]++;
+      }
+    });
+    agent.start();
+    runtime.runUntilIdle();
+    InputEvent[] inputs = new InputEvent[events];
+    for (int i = 0; i < events; i++) {
+      inputs[i] = new InputEvent(i);
+    }
+    // the bytes allocated by the measurement itself
+    long before = BenchmarkSupport.getAllocatedBytesOfAllThreads();
+    long overhead = BenchmarkSupport.getAllocatedBytesOfAllThreads() - before;
+    long totalBytes = 0;
+    System.out.println("Allocated bytes for each processed event, " + events
+        + " events for each round:");
+    int allRounds = AllocationBenchmark.WARM_UP_ROUNDS + rounds;
+    for (int round = 0; round < allRounds; round++) {
+      for (int i = 0; i < events; i++) {
+        agent.on(inputs[i]);
+      }
+      before = BenchmarkSupport.getAllocatedBytesOfAllThreads();
+      runtime.runUntilIdle();
+      long bytes = BenchmarkSupport.getAllocatedBytesOfAllThreads() - before
+          - overhead;
+      if (round >= AllocationBenchmark.WARM_UP_ROUNDS) {
+        totalBytes += bytes;
+        System.out.println(String.format("round %2d: %d B, %.3f B/event",
+            round - AllocationBenchmark.WARM_UP_ROUNDS, bytes,
+            (double) bytes / events));
+      }
+    }
+    System.out.println(String.format(
+        "steady state: %.3f B/event (%d events processed, %d results received)",
+        (double) totalBytes / ((long) events * rounds),
+        agent.getProcessedEventsCount(EventPriority.MEDIUM), received[0]));
+    runtime.shutdown();
+    parallelRuleExecutor.shutdown();
+    System.exit(0);
+  }
+
+  /**
+   * The event processed by the agent.
+   */
+  public static class InputEvent extends Event< PhysicalAgent> {
+    // the value checked by the rules
+    private final int value;
+
+    public InputEvent(int value) {
+      super(null);
+      this.value = value;
+    }
+  }
+
+  /**
+   * The event emitted by the rules.
+   */
+  public static class ResultEvent extends Event< PhysicalAgent> {
+    public ResultEvent() {
+      super(null);
+    }
+  }
+}
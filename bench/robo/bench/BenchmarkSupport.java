@@ -0,0 +1,118 @@
+package robo.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Helper methods shared by the benchmarks: busy waiting, percentiles of the
+ * measured samples and the bytes allocated by the current thread.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 09:12:40
+ * 
+ */
+final class BenchmarkSupport {
+  private BenchmarkSupport() {
+  }
+
+  /**
+   * Keep the current thread busy (without sleeping) for the given time.
+   * 
+   * @param nanos
+   *          the time to spend, in nanoseconds
+   */
+  static void spin(long nanos) {
+    long start = System.nanoTime();
+    while (System.nanoTime() - start < nanos) {
+      // busy wait, so the time is really spent on the CPU
+    }
+  }
+
+  /**
+   * Format the percentiles of the given samples (which are sorted by this
+   * method).
+   * 
+   * @param samples
+   *          the samples, in nanoseconds
+   * @return the formatted percentiles, in microseconds
+   */
+  static String formatPercentiles(long[] samples) {
+    Arrays.sort(samples);
+    return String.format(
+        "p50=%.2fus p90=%.2fus p99=%.2fus p99.9=%.2fus max=%.2fus",
+        BenchmarkSupport.percentile(samples, 50) / 1000.0,
+        BenchmarkSupport.percentile(samples, 90) / 1000.0,
+        BenchmarkSupport.percentile(samples, 99) / 1000.0,
+        BenchmarkSupport.percentile(samples, 99.9) / 1000.0,
+        samples[samples.length - 1] / 1000.0);
+  }
+
+  /**
+   * Get a percentile of the given (sorted) samples.
+   * 
+   * @param sortedSamples
+   *          the samples, sorted in ascending order
+   * @param percentile
+   *          the percentile (between 0 and 100)
+   * @return the sample at the given percentile
+   */
+  static long percentile(long[] sortedSamples, double percentile) {
+    int last = sortedSamples.length - 1;
+    int index = (int) Math.ceil(percentile / 100.0 * sortedSamples.length) - 1;
+    return sortedSamples[Math.max(0, Math.min(index, last))];
+  }
+
+  /**
+   * Get the number of bytes allocated by the current thread since it started.
+   * This requires the HotSpot (or a compatible) JVM.
+   * 
+   * @return the number of allocated bytes
+   */
+  static long getAllocatedBytes() {
+    com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+        .getThreadMXBean();
+    return threadMXBean
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Get the number of bytes allocated by all the live threads since they
+   * started (e.g. to also count the threads of a pool used by the measured
+   * code). This requires the HotSpot (or a compatible) JVM.
+   * 
+   * @return the number of allocated bytes
+   */
+  static long getAllocatedBytesOfAllThreads() {
+    com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+        .getThreadMXBean();
+    long[] allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadMXBean
+        .getAllThreadIds());
+    long total = 0;
+    for (long bytes : allocatedBytes) {
+      // -1 for the threads which ended in the meantime
+      if (bytes > 0) {
+        total += bytes;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Get the heap memory currently used, after requesting a garbage
+   * collection.
+   * 
+   * @return the used heap memory, in bytes
+   */
+  static long getUsedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
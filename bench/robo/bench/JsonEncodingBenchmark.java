@@ -0,0 +1,112 @@
+package robo.bench;
+
+import org.json.JSONException;
+
+import robo.comm.codec.JsonWriter;
+import robo.model.MeasurementUnit;
+import robo.model.event.sensor.electric.VoltageSensorEvent;
+import robo.model.sensor.electric.VoltageSensor;
+
+/**
+ * Compare the JSON encodings of a <code>VoltageSensorEvent</code>: the
+ * <code>JSONObject</code> tree built by <code>toJson</code> (and then
+ * serialized), the reusable <code>JsonWriter</code> together with the final
+ * <code>String</code> needed by the socket.io transport, and the reusable
+ * <code>JsonWriter</code> alone. For each encoding, the bytes allocated for
+ * each event and the latency percentiles of the encoding are reported.
+ * 
+ * Usage: <code>JsonEncodingBenchmark [events [rounds]]</code> (by default
+ * 200000 events and 3 rounds, after one warm up round).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 10:37:16
+ * 
+ */
+public class JsonEncodingBenchmark {
+  // the number of encoded events in each round, if not specified
+  private static final int DEFAULT_EVENTS = 200000;
+  // the number of measured rounds, if not specified
+  private static final int DEFAULT_ROUNDS = 3;
+  // the encodings compared by the benchmark
+  private static final String[] ENCODINGS = { "JSONObject",
+      "JsonWriter+String", "JsonWriter" };
+  // the sum of the encodings lengths, so the encoding can't be optimized away
+  private static long checksum = 0;
+
+  public static void main(String[] args) throws Exception {
+    int events = args.length > 0 ? Integer.parseInt(args[0])
+        : JsonEncodingBenchmark.DEFAULT_EVENTS;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1])
+        : JsonEncodingBenchmark.DEFAULT_ROUNDS;
+    VoltageSensor sensor = new VoltageSensor("voltage-sensor") {
+      @Override
+      public void initialize() {
+      }
+
+      @Override
+      public void onStarted() {
+      }
+
+      @Override
+      public void onStopped() {
+      }
+    };
+    VoltageSensorEvent event = new VoltageSensorEvent(sensor, 3.3,
+        MeasurementUnit.Electric.Voltage.V);
+    JsonWriter writer = new JsonWriter();
+    System.out.println("JSONObject: " + event.toJson().toString());
+    System.out.println("JsonWriter: " + writer.reset().write(event));
+    long[] latencies = new long[events];
+    for (int round = 0; round <= rounds; round++) {
+      if (round > 0) {
+        System.out.println("round " + round + ":");
+      }
+      int encodings = JsonEncodingBenchmark.ENCODINGS.length;
+      for (int encoding = 0; encoding < encodings; encoding++) {
+        // the bytes allocated by the measurement itself
+        long before = BenchmarkSupport.getAllocatedBytes();
+        long overhead = BenchmarkSupport.getAllocatedBytes() - before;
+        before = BenchmarkSupport.getAllocatedBytes();
+        JsonEncodingBenchmark.encode(encoding, event, writer, latencies);
+        long bytes = BenchmarkSupport.getAllocatedBytes() - before - overhead;
+        if (round > 0) {
+          System.out.println(String.format("  %-17s %8.1f B/event %s",
+              JsonEncodingBenchmark.ENCODINGS[encoding], (double) bytes
+                  / events, BenchmarkSupport.formatPercentiles(latencies)));
+        }
+      }
+    }
+    System.out.println("checksum: " + JsonEncodingBenchmark.checksum);
+  }
+
+  /**
+   * Encode the event once for each latency sample.
+   * 
+   * @param encoding
+   *          the index of the encoding (see <code>ENCODINGS</code>)
+   * @param event
+   *          the encoded event
+   * @param writer
+   *          the reusable writer
+   * @param latencies
+   *          the array where the latency of each encoding is stored
+   * @throws JSONException
+   *           if the JSONObject encoding fails
+   */
+  private static void encode(int encoding, VoltageSensorEvent event,
+      JsonWriter writer, long[] latencies) throws JSONException {
+    long checksum = 0;
+    for (int i = 0; i < latencies.length; i++) {
+      long start = System.nanoTime();
+      if (encoding == 0) {
+        checksum += event.toJson().toString().length();
+      } else if (encoding == 1) {
+        checksum += writer.reset().write(event).toJSONString().length();
+      } else {
+        checksum += writer.reset().write(event).getLength();
+      }
+      latencies[i] = System.nanoTime() - start;
+    }
+    JsonEncodingBenchmark.checksum += checksum;
+  }
+}
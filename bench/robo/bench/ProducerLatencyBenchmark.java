@@ -0,0 +1,121 @@
+package robo.bench;
+
+import java.util.List;
+
+import robo.logger.Logger;
+import robo.model.PhysicalAgent;
+import robo.model.Rule;
+import robo.model.WoTSystem;
+import robo.model.event.Event;
+import robo.model.event.EventPriority;
+import robo.model.event.OverflowPolicy;
+
+/**
+ * Measure the latency of <code>PhysicalAgent.on</code> (i.e. the time a
+ * producer needs to hand an event to an agent) while the cost of the rule
+ * processing the events grows. The producer never waits for the processing of
+ * the consumer, so the latency percentiles are expected to stay flat for all
+ * the rule costs.
+ * 
+ * The consumer uses a time budget and a bounded mailbox (dropping the oldest
+ * events), so with the expensive rules the producer also hits a full mailbox.
+ * 
+ * Usage:
+ * <code>ProducerLatencyBenchmark [events [ruleCost1 ruleCost2 ...]]</code>
+ * where the rule costs are given in microseconds (by default 20000 events
+ * and the rule costs 0, 10, 100, 1000 and 5000).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 09:31:05
+ * 
+ */
+public class ProducerLatencyBenchmark {
+  // the number of events sent for each rule cost, if not specified
+  private static final int DEFAULT_EVENTS = 20000;
+  // the rule costs (in microseconds) used if not specified
+  private static final long[] DEFAULT_RULE_COSTS = { 0, 10, 100, 1000, 5000 };
+  // the number of events sent without pause, before the producer sleeps 1 ms
+  private static final int BURST_SIZE = 20;
+
+  public static void main(String[] args) throws Exception {
+    Logger.LOG_LEVEL = Logger.LogLevelEnum.ERROR;
+    int events = args.length > 0 ? Integer.parseInt(args[0])
+        : ProducerLatencyBenchmark.DEFAULT_EVENTS;
+    long[] ruleCosts = ProducerLatencyBenchmark.DEFAULT_RULE_COSTS;
+    if (args.length > 1) {
+      ruleCosts = new long[args.length - 1];
+      for (int i = 1; i < args.length; i++) {
+        ruleCosts[i - 1] = Long.parseLong(args[i]);
+      }
+    }
+    // warm up, the results are not reported
+    ProducerLatencyBenchmark.run(events, 0);
+    System.out.println("Producer on() latency, " + events
+        + " events for each rule cost:");
+    for (long ruleCost : ruleCosts) {
+      System.out.println(ProducerLatencyBenchmark.run(events, ruleCost));
+    }
+    System.exit(0);
+  }
+
+  /**
+   * Send events to an agent whose rule has the given cost and measure the
+   * latency of each <code>on</code> call.
+   * 
+   * @param events
+   *          the number of events to send
+   * @param ruleCost
+   *          the cost of the rule, in microseconds
+   * @return the results, formatted for printing
+   */
+  private static String run(int events, long ruleCost) throws Exception {
+    final long ruleCostNanos = ruleCost * 1000L;
+    final int[] processed = new int[1];
+    WoTSystem consumer = new WoTSystem("consumer") {
+      @Override
+      public void initialize() {
+      }
+    };
+    consumer.addRule(new Rule< WoTSystem, BenchmarkEvent>() {
+      @Override
+      protected List< Event< ?>> execute() {
+        BenchmarkSupport.spin(ruleCostNanos);
+        processed[0]++;
+        return null;
+      }
+    });
+    consumer.setPriorityTimeBudget(EventPriority.MEDIUM, 10);
+    consumer.setMailboxCapacity(EventPriority.MEDIUM, 1000,
+        OverflowPolicy.DROP_OLDEST, 0);
+    consumer.start();
+    Thread.sleep(100);
+    BenchmarkEvent[] sent = new BenchmarkEvent[events];
+    for (int i = 0; i < events; i++) {
+      sent[i] = new BenchmarkEvent();
+    }
+    long[] latencies = new long[events];
+    for (int i = 0; i < events; i++) {
+      long start = System.nanoTime();
+      consumer.on(sent[i]);
+      latencies[i] = System.nanoTime() - start;
+      if (i % ProducerLatencyBenchmark.BURST_SIZE == 0) {
+        Thread.sleep(1);
+      }
+    }
+    consumer.setActive(false);
+    consumer.stop();
+    Thread.sleep(100);
+    return String.format("ruleCost=%5dus %s (processed=%d, dropped=%d)",
+        ruleCost, BenchmarkSupport.formatPercentiles(latencies),
+        processed[0], consumer.getDroppedEventsCount());
+  }
+
+  /**
+   * The event sent by the producer.
+   */
+  public static class BenchmarkEvent extends Event< PhysicalAgent> {
+    public BenchmarkEvent() {
+      super(null);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package robo.bench;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import robo.logger.Logger;
+import robo.model.Rule;
+import robo.model.WoTSystem;
+import robo.model.event.Event;
+import robo.model.event.sensor.proximity.DistanceSensorEvent;
+import robo.model.sensor.proximity.HCSR04;
+import robo.runtime.AgentRuntime;
+import robo.runtime.VirtualThreadAgentRuntime;
+
+/**
+ * Start a number of emulated distance sensors (each one blocking for a while
+ * in each cycle, as a real sensor reading does) under the runtimes selected
+ * with the <code>robo.runtime</code> system property, and report for each
+ * runtime: the startup time (until every sensor executed its first cycle),
+ * the used heap memory, the resident memory of the process (on Linux) and the
+ * number of platform threads after startup, and the cycle throughput of all
+ * the sensors.
+ * 
+ * NOTE1: virtual threads need Java 21 or newer, with older Java versions the
+ * <code>virtual</code> runtime falls back to platform threads (and this is
+ * shown in the results).
+ * 
+ * NOTE2: the memory released by a runtime is not always returned to the
+ * operating system, so the resident memory is only accurate for the first
+ * runtime (i.e. use one runtime for each run to compare it).
+ * 
+ * Usage:
+ * <code>RuntimeBenchmark [agents [seconds [runtime1 runtime2 ...]]]</code>
+ * (by default 1000 agents, measured for 5 seconds, with the
+ * <code>thread</code> and <code>virtual</code> runtimes).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 11:02:33
+ * 
+ */
+public class RuntimeBenchmark {
+  // the number of agents, if not specified
+  private static final int DEFAULT_AGENTS = 1000;
+  // the measurement time (in seconds), if not specified
+  private static final int DEFAULT_SECONDS = 5;
+  // the runtimes used if not specified
+  private static final String[] DEFAULT_RUNTIMES = { "thread", "virtual" };
+  // the number of readings per second of each sensor
+  private static final int PERIODICITY = 20;
+  // the time (in milliseconds) blocked by each emulated sensor reading
+  private static final long READING_TIME = 5;
+
+  public static void main(String[] args) throws Exception {
+    Logger.LOG_LEVEL = Logger.LogLevelEnum.ERROR;
+    int agents = args.length > 0 ? Integer.parseInt(args[0])
+        : RuntimeBenchmark.DEFAULT_AGENTS;
+    int seconds = args.length > 1 ? Integer.parseInt(args[1])
+        : RuntimeBenchmark.DEFAULT_SECONDS;
+    String[] runtimes = RuntimeBenchmark.DEFAULT_RUNTIMES;
+    if (args.length > 2) {
+      runtimes = new String[args.length - 2];
+      System.arraycopy(args, 2, runtimes, 0, runtimes.length);
+    }
+    System.out.println(agents + " emulated sensors, "
+        + RuntimeBenchmark.PERIODICITY + " readings/s each, "
+        + RuntimeBenchmark.READING_TIME + " ms blocking read:");
+    for (String runtime : runtimes) {
+      System.out.println(RuntimeBenchmark.run(runtime, agents, seconds));
+    }
+    System.exit(0);
+  }
+
+  /**
+   * Start the sensors with the given runtime and measure them.
+   * 
+   * @param runtimeName
+   *          the value of the <code>robo.runtime</code> system property
+   * @param agents
+   *          the number of sensors
+   * @param seconds
+   *          the measurement time, in seconds
+   * @return the results, formatted for printing
+   */
+  private static String run(String runtimeName, int agents, int seconds)
+      throws Exception {
+    // the default runtime is created again, based on the system property
+    System.setProperty(AgentRuntime.RUNTIME_PROPERTY, runtimeName);
+    AgentRuntime.setDefaultRuntime(null);
+    AgentRuntime runtime = AgentRuntime.getDefaultRuntime();
+    if (runtime instanceof VirtualThreadAgentRuntime
+        && !((VirtualThreadAgentRuntime) runtime).isVirtual()) {
+      runtimeName += " (platform threads fallback)";
+    }
+    final AtomicLong readings = new AtomicLong(0);
+    final AtomicLong cycles = new AtomicLong(0);
+    final AtomicInteger startedSensors = new AtomicInteger(0);
+    WoTSystem system = new WoTSystem("system") {
+      @Override
+      public void initialize() {
+      }
+    };
+    for (int i = 0; i < agents; i++) {
+      HCSR04 sensor = new HCSR04("sensor" + i) {
+        // flag showing that the first cycle of this sensor was executed
+        private boolean started = false;
+
+        @Override
+        public void onCycleStarts() {
+          if (!this.started) {
+            this.started = true;
+            startedSensors.incrementAndGet();
+          }
+          cycles.incrementAndGet();
+          try {
+            Thread.sleep(RuntimeBenchmark.READING_TIME);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          this.trigger(new DistanceSensorEvent(this, 100, this.getUnit()));
+        }
+      };
+      sensor.setPeriodicity(RuntimeBenchmark.PERIODICITY);
+      system.addComponent(sensor);
+    }
+    system.addRule(new Rule< WoTSystem, DistanceSensorEvent>() {
+      @Override
+      protected List< Event< ?>> execute() {
+        readings.incrementAndGet();
+        return null;
+      }
+    });
+    long usedMemory = BenchmarkSupport.getUsedMemory();
+    long residentMemory = RuntimeBenchmark.getResidentMemory();
+    long startTime = System.nanoTime();
+    system.start();
+    while (startedSensors.get() < agents) {
+      Thread.sleep(1);
+    }
+    long startupTime = System.nanoTime() - startTime;
+    int platformThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+    usedMemory = BenchmarkSupport.getUsedMemory() - usedMemory;
+    residentMemory = RuntimeBenchmark.getResidentMemory() - residentMemory;
+    long executedCycles = cycles.get();
+    long processed = readings.get();
+    Thread.sleep(seconds * 1000L);
+    executedCycles = cycles.get() - executedCycles;
+    processed = readings.get() - processed;
+    system.stop();
+    Thread.sleep(500);
+    runtime.shutdown();
+    return String.format("%-8s startup=%dms heap=%.1fMB resident=%.1fMB "
+        + "platformThreads=%d cycles=%.0f/s processedReadings=%.0f/s",
+        runtimeName, startupTime / 1000000, usedMemory / (1024.0 * 1024.0),
+        residentMemory / (1024.0 * 1024.0), platformThreads,
+        (double) executedCycles / seconds, (double) processed / seconds);
+  }
+
+  /**
+   * Get the resident memory of the process (thread stacks included), as given
+   * by <code>/proc/self/status</code> on Linux.
+   * 
+   * @return the resident memory, in bytes, or 0 if it is not available
+   */
+  private static long getResidentMemory() {
+    BufferedReader reader = null;
+    try {
+      reader = new BufferedReader(new FileReader("/proc/self/status"));
+      String line = null;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith("VmRSS:")) {
+          // the value is given in kB
+          String kiloBytes = line.substring(6).replace("kB", "").trim();
+          return Long.parseLong(kiloBytes) * 1024;
+        }
+      }
+    } catch (IOException e) {
+      // not available on this operating system
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          // nothing to do
+        }
+      }
+    }
+    return 0;
+  }
+}
@@ -3,6 +3,9 @@ package robo.comm;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import robo.comm.codec.JsonName;
+import robo.comm.codec.JsonWriter;
+
 /**
  * Account object, required for login/logout operations.
  * 
@@ -10,6 +13,9 @@ import org.json.JSONObject;
  * @date Apr 8, 2014, 10:48:46 PM
  */
 public class Account {
+  // the names of the JSON fields
+  private static final JsonName USERNAME = new JsonName("username");
+  private static final JsonName PASSWORD = new JsonName("password");
   private String username = null;
   private String password = null;
 
@@ -46,4 +52,20 @@ public class Account {
     }
     return result;
   }
+
+  /**
+   * Write the fields of the account into the current object of a JSON writer
+   * (the same fields as for <code>toJson</code>).
+   * 
+   * @param writer
+   *          the JSON writer
+   */
+  public void writeJsonFields(JsonWriter writer) {
+    if (this.username != null) {
+      writer.name(Account.USERNAME).value(this.username);
+    }
+    if (this.password != null && this.password.length() > 0) {
+      writer.name(Account.PASSWORD).value(this.password);
+    }
+  }
 }
@@ -1,13 +1,10 @@
 package robo.comm;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 import robo.logger.Logger;
 import robo.model.event.Event;
+import robo.model.event.EventDispatcher;
 import robo.model.event.EventListener;
 import robo.model.event.EventSource;
 
@@ -30,10 +27,8 @@ public abstract class Telegraf< S, A> implements EventListener, EventSource {
   protected S socket = null;
   // the user object - used only for Telegraf implementations that requires it
   private Account account = null;
-  // event listeners organized by event types
-  private Map< Class< ? extends Event< ?>>, List< EventListener>> eventListenersByEventType = null;
-  // event listeners registered for ALL event types
-  private List< EventListener> eventListenersForAllEvents = null;
+  // the event listeners, with the dispatch arrays resolved for each event type
+  private final EventDispatcher eventDispatcher = new EventDispatcher();
   // the logger
   protected Logger logger = null;
 
@@ -44,9 +39,6 @@ public abstract class Telegraf< S, A> implements EventListener, EventSource {
   public Telegraf(A serverAddress, int serverPort) {
     this.serverAddress = serverAddress;
     this.serverPort = serverPort;
-    this.eventListenersByEventType = new HashMap< Class< ? extends Event< ?>>, List< EventListener>>(
-        1);
-    this.eventListenersForAllEvents = new ArrayList< EventListener>(1);
   }
 
   /**
@@ -133,28 +125,34 @@ public abstract class Telegraf< S, A> implements EventListener, EventSource {
 
   @Override
   public boolean addListener(EventListener eventListener) {
-    if (eventListener == null) {
-      return false;
-    }
-    this.eventListenersForAllEvents.add(eventListener);
-    return true;
+    return this.eventDispatcher.addListener(eventListener);
   }
 
+  /**
+   * Register a listener for an event type. The listener receives the events
+   * of the given type and of all its subtypes.
+   * 
+   * @param eventType
+   *          the event type
+   * @param eventListener
+   *          the listener
+   * @return true if the listener was registered, false otherwise
+   */
   @Override
   public boolean addListenerForEventType(Class< ? extends Event< ?>> eventType,
       EventListener eventListener) {
-    if (eventType == null || eventListener == null) {
-      return false;
-    }
-    List< EventListener> listeners = this.eventListenersByEventType
-        .get(eventType);
-    if (listeners == null) {
-      listeners = new ArrayList< EventListener>(1);
-      listeners.add(eventListener);
-      this.eventListenersByEventType.put(eventType, listeners);
-    } else {
-      listeners.add(eventListener);
-    }
-    return true;
+    return this.eventDispatcher.addListenerForEventType(eventType,
+        eventListener);
+  }
+
+  /**
+   * Remove all the registrations of a listener.
+   * 
+   * @param eventListener
+   *          the listener
+   * @return true if the listener was registered, false otherwise
+   */
+  public boolean removeListener(EventListener eventListener) {
+    return this.eventDispatcher.removeListener(eventListener);
   }
 }
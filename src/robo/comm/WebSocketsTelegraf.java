@@ -6,27 +6,121 @@ import io.socket.SocketIO;
 import io.socket.SocketIOException;
 
 import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import robo.comm.codec.BinaryEventCodec;
+import robo.comm.codec.EventSchemas;
+import robo.comm.codec.JsonWriter;
+import robo.comm.codec.TelemetryEncoder;
 import robo.logger.DefaultLogger;
+import robo.model.Entity;
 import robo.model.event.Event;
+import robo.model.event.EventPriority;
 import robo.model.event.StoppedEvent;
 import robo.model.event.comm.AuthenticationFailedEvent;
 import robo.model.event.comm.AuthenticationRequestEvent;
 import robo.model.event.comm.DisableCommunicationEvent;
 import robo.model.event.comm.DisconnectedEvent;
+import robo.model.event.sensor.MeasurementEvent;
 
 /**
  * Implementation of Telegraf: uses Web Sockets for communication.
  * 
+ * The events are sent as JSON, unless the server accepts the binary codec:
+ * after the authentication request, the supported codecs and the event
+ * schemas are offered to the server, which answers with the selected codec.
+ * Then, the events having a registered schema are sent as binary frames, and
+ * the other events are still sent as JSON. The servers which do not know
+ * the offer simply ignore it, so they keep receiving JSON.
+ * 
+ * If a telemetry period is set, the compressed telemetry batches are also
+ * offered: if the server accepts them, the measured values of the sensors are
+ * collected and sent as one batch for each period, instead of one event for
+ * each value (so the values are delayed up to one period).
+ * 
+ * If batching is set, the event batches are also offered: if the server
+ * accepts them, the events (JSON objects and binary frames) are collected and
+ * sent as one message, when the batch reaches its maximum size or its maximum
+ * linger time, whichever comes first. The events with a very high priority
+ * are sent at once (together with the events collected before them).
+ * 
  * @author Mircea Diaconescu
  * @date Apr 8, 2014, 10:48:46 PM
  * 
  */
 public class WebSocketsTelegraf extends Telegraf< SocketIO, String> implements
     IOCallback {
+  // the name of the JSON codec, as used for the negotiation
+  public static final String JSON_CODEC = "json";
+  // the event type of the codecs offer
+  public static final String CODEC_OFFER_EVENT = "CodecOffer";
+  // the event type of the server answer to the codecs offer
+  public static final String CODEC_SELECTED_EVENT = "CodecSelected";
+  // the event type of the binary frames
+  public static final String BINARY_EVENT = "BinaryEvent";
+  // the event type of the telemetry batches
+  public static final String TELEMETRY_EVENT = "TelemetryBatch";
+  // the name of the event batches, as used for the negotiation
+  public static final String BATCH_FORMAT = "batch/1";
+  // the event type of the event batches
+  public static final String BATCH_EVENT = "EventBatch";
+  // the timer sending the event batches at the end of their linger time and
+  // the telemetry batches at the end of their period (shared by all the
+  // telegrafs, created when first needed)
+  private static ScheduledThreadPoolExecutor batchTimer = null;
+  // true if the binary codec is offered to the server
+  private boolean binaryCodecOffered = true;
+  // the binary codec of the current connection, null if the events are sent
+  // as JSON
+  private volatile BinaryEventCodec binaryCodec = null;
+  // the writer of the events sent as JSON (reused for all the events)
+  private final JsonWriter jsonWriter = new JsonWriter();
+  // the period (in milliseconds) of the telemetry batches, 0 if the
+  // telemetry batches are not offered to the server
+  private long telemetryPeriod = 0;
+  // the telemetry encoder of the current connection, null if the measured
+  // values are sent as events
+  private volatile TelemetryEncoder telemetryEncoder = null;
+  // the time (as given by System.nanoTime) when the current telemetry batch
+  // started
+  private long telemetryStartTime = 0;
+  // the sending of the current telemetry batch at the end of its period, null
+  // if the batch is empty
+  private ScheduledFuture< ?> telemetryFlush = null;
+  // the task sending the current telemetry batch at the end of its period
+  private final Runnable telemetryFlusher = new Runnable() {
+    @Override
+    public void run() {
+      WebSocketsTelegraf.this.flushTelemetry(true);
+    }
+  };
+  // the maximum size (in characters) of the event batches, 0 if the event
+  // batches are not offered to the server
+  private int batchMaxSize = 0;
+  // the maximum time (in milliseconds) an event waits in a batch
+  private long batchMaxLinger = 0;
+  // true if the events of the current connection are sent in batches
+  private volatile boolean batchAccepted = false;
+  // the writer of the current event batch (reused for all the batches)
+  private final JsonWriter batchWriter = new JsonWriter();
+  // the number of events of the current batch
+  private int batchCount = 0;
+  // the time (as given by System.nanoTime) when the current batch started
+  private long batchStartTime = 0;
+  // the task sending the current batch at the end of its linger time
+  private final Runnable batchFlusher = new Runnable() {
+    @Override
+    public void run() {
+      WebSocketsTelegraf.this.flushBatch(true);
+    }
+  };
 
   public WebSocketsTelegraf(String serverAddress, int serverPort) {
     super(serverAddress, serverPort);
@@ -39,22 +133,144 @@ public class WebSocketsTelegraf extends Telegraf< SocketIO, String> implements
     if (this.socket == null || event == null) {
       return;
     }
-    try {
-      if (this.socket.isConnected()) {
-        JSONObject jsonEvent = event.toJson();
-        this.socket.emit(jsonEvent.getString("type"), jsonEvent);
+    if (this.socket.isConnected()) {
+      if (this.addToTelemetry(event)) {
+        // the measured value is sent with the telemetry batch
+        return;
       }
-      // in case that the event type is: CloseCommunicationEvent
-      // then the communication with the server will be closed
       if (StoppedEvent.class.isInstance(event)) {
-        this.logger.info(this.getClass().getSimpleName(),
-            StoppedEvent.class.getSimpleName()
-                + " event was received, request server to close connection.");
-        this.socket.emit(DisableCommunicationEvent.class.getSimpleName());
+        // the values collected so far are sent before the stopped event
+        this.flushTelemetry();
+      }
+      if (this.batchAccepted) {
+        this.addToBatch(event);
+      } else {
+        this.emit(event);
+      }
+    }
+    // in case that the event type is: CloseCommunicationEvent
+    // then the communication with the server will be closed
+    if (StoppedEvent.class.isInstance(event)) {
+      this.flushBatch();
+      this.logger.info(this.getClass().getSimpleName(),
+          StoppedEvent.class.getSimpleName()
+              + " event was received, request server to close connection.");
+      this.socket.emit(DisableCommunicationEvent.class.getSimpleName());
+    }
+  }
+
+  /**
+   * Helper method used to send one event: as a binary frame, if the binary
+   * codec was selected and the event has a registered schema, or as JSON.
+   * 
+   * @param event
+   *          the event
+   */
+  private void emit(Event< ?> event) {
+    BinaryEventCodec codec = this.binaryCodec;
+    if (codec != null && codec.canEncode(event)) {
+      // the frames must be sent in the order they were encoded
+      synchronized (codec) {
+        this.socket.emit(WebSocketsTelegraf.BINARY_EVENT,
+            codec.encodeToString(event));
+      }
+    } else {
+      // the event is written directly as JSON text, which the socket copies
+      // into the message (no JSONObject tree is created)
+      synchronized (this.jsonWriter) {
+        this.jsonWriter.reset().write(event);
+        this.socket.emit(Entity.getTypeName(event.getClass()),
+            this.jsonWriter);
+      }
+    }
+  }
+
+  /**
+   * Helper method used to add an event to the current batch (as a binary
+   * frame, i.e. a Base64 string, or as a JSON object), and to send the batch
+   * when it is full or the event has a very high priority.
+   * 
+   * @param event
+   *          the event
+   */
+  private void addToBatch(Event< ?> event) {
+    synchronized (this.batchWriter) {
+      if (this.batchCount == 0) {
+        this.batchWriter.reset().beginArray();
+        this.batchStartTime = System.nanoTime();
+        WebSocketsTelegraf.getBatchTimer().schedule(this.batchFlusher,
+            this.batchMaxLinger, TimeUnit.MILLISECONDS);
+      }
+      BinaryEventCodec codec = this.binaryCodec;
+      if (codec != null && codec.canEncode(event)) {
+        synchronized (codec) {
+          this.batchWriter.value(codec.encodeToString(event));
+        }
+      } else {
+        this.batchWriter.write(event);
+      }
+      this.batchCount++;
+      if (event.getPriority() == EventPriority.VERY_HIGH
+          || this.batchWriter.getLength() >= this.batchMaxSize) {
+        this.flushBatch(false);
+      }
+    }
+  }
+
+  /**
+   * Send the current event batch now (if any), instead of waiting for it to
+   * be full or for its linger time to pass.
+   */
+  public void flushBatch() {
+    this.flushBatch(false);
+  }
+
+  /**
+   * Helper method used to send the current event batch.
+   * 
+   * @param lingerEnded
+   *          true if the batch is sent because its linger time passed (then
+   *          the batch is only sent if it is the one the linger time was
+   *          started for, not a newer one)
+   */
+  private void flushBatch(boolean lingerEnded) {
+    synchronized (this.batchWriter) {
+      if (this.batchCount == 0) {
+        return;
       }
-    } catch (JSONException e) {
-      e.printStackTrace();
+      long age = System.nanoTime() - this.batchStartTime;
+      if (lingerEnded
+          && age < TimeUnit.MILLISECONDS.toNanos(this.batchMaxLinger)) {
+        return;
+      }
+      this.batchWriter.endArray();
+      this.batchCount = 0;
+      if (this.socket != null && this.socket.isConnected()) {
+        this.socket.emit(WebSocketsTelegraf.BATCH_EVENT, this.batchWriter);
+      }
+    }
+  }
+
+  /**
+   * Get the timer sending the event batches at the end of their linger time
+   * and the telemetry batches at the end of their period. The timer is
+   * created the first time this method is called.
+   * 
+   * @return the timer
+   */
+  private static synchronized ScheduledThreadPoolExecutor getBatchTimer() {
+    if (WebSocketsTelegraf.batchTimer == null) {
+      WebSocketsTelegraf.batchTimer = new ScheduledThreadPoolExecutor(1,
+          new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "robo-telegraf-batches");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
     }
+    return WebSocketsTelegraf.batchTimer;
   }
 
   @Override
@@ -71,6 +287,7 @@ public class WebSocketsTelegraf extends Telegraf< SocketIO, String> implements
     socket.connect(this);
     this.socket.emit(AuthenticationRequestEvent.class.getSimpleName(),
         (new AuthenticationRequestEvent(this, this.getAccount())).toJson());
+    this.offerCodecs();
   }
 
   @Override
@@ -83,11 +300,222 @@ public class WebSocketsTelegraf extends Telegraf< SocketIO, String> implements
     this.socket.emit(AuthenticationRequestEvent.class.getSimpleName(),
         (new AuthenticationRequestEvent(this, this.getAccount(), clientName))
             .toJson());
+    this.offerCodecs();
+  }
+
+  /**
+   * Check if the binary codec is offered to the server when connecting.
+   * 
+   * @return true if the binary codec is offered, false if the events are
+   *         always sent as JSON
+   */
+  public boolean isBinaryCodecOffered() {
+    return this.binaryCodecOffered;
+  }
+
+  /**
+   * Set if the binary codec is offered to the server when connecting (this
+   * is used for the next connection).
+   * 
+   * @param binaryCodecOffered
+   *          true if the binary codec is offered, false if the events are
+   *          always sent as JSON
+   */
+  public void setBinaryCodecOffered(boolean binaryCodecOffered) {
+    this.binaryCodecOffered = binaryCodecOffered;
+  }
+
+  /**
+   * Get the period of the telemetry batches.
+   * 
+   * @return the period, in milliseconds (0 if the telemetry batches are not
+   *         offered to the server)
+   */
+  public long getTelemetryPeriod() {
+    return this.telemetryPeriod;
+  }
+
+  /**
+   * Set the period of the telemetry batches (this is used for the next
+   * connection). The measurement events with
+   * <code>EventPriority.VERY_HIGH</code> are still sent immediately.
+   * 
+   * @param telemetryPeriod
+   *          the period, in milliseconds (0 if the telemetry batches are not
+   *          offered to the server)
+   */
+  public void setTelemetryPeriod(long telemetryPeriod) {
+    this.telemetryPeriod = Math.max(0, telemetryPeriod);
+  }
+
+  /**
+   * Get the maximum size of the event batches.
+   * 
+   * @return the maximum size, in characters (0 if the event batches are not
+   *         offered to the server)
+   */
+  public int getBatchMaxSize() {
+    return this.batchMaxSize;
+  }
+
+  /**
+   * Get the maximum time an event waits in a batch.
+   * 
+   * @return the maximum linger time, in milliseconds
+   */
+  public long getBatchMaxLinger() {
+    return this.batchMaxLinger;
+  }
+
+  /**
+   * Set the limits of the event batches (this is used for the next
+   * connection). A batch is sent when its size reaches the maximum size or
+   * when its first event waited the maximum linger time, whichever comes
+   * first.
+   * 
+   * @param maxSize
+   *          the maximum size, in characters (0 if the event batches are not
+   *          offered to the server)
+   * @param maxLinger
+   *          the maximum linger time, in milliseconds
+   */
+  public void setBatching(int maxSize, long maxLinger) {
+    this.batchMaxSize = Math.max(0, maxSize);
+    this.batchMaxLinger = Math.max(0, maxLinger);
+  }
+
+  /**
+   * Send the current telemetry batch now (if any), instead of waiting for
+   * the end of its period.
+   */
+  public void flushTelemetry() {
+    this.flushTelemetry(false);
+  }
+
+  /**
+   * Helper method used to send the current telemetry batch.
+   * 
+   * @param periodEnded
+   *          true if the batch is sent because its period passed (then the
+   *          batch is only sent if it is the one the period was started for,
+   *          not a newer one)
+   */
+  private void flushTelemetry(boolean periodEnded) {
+    TelemetryEncoder encoder = this.telemetryEncoder;
+    if (encoder == null) {
+      return;
+    }
+    synchronized (encoder) {
+      if (encoder.getCount() == 0) {
+        return;
+      }
+      long age = System.nanoTime() - this.telemetryStartTime;
+      if (periodEnded
+          && age < TimeUnit.MILLISECONDS.toNanos(this.telemetryPeriod)) {
+        return;
+      }
+      if (this.socket != null && this.socket.isConnected()) {
+        this.sendTelemetry(encoder);
+      }
+    }
+  }
+
+  /**
+   * Helper method used to send the current telemetry batch and to cancel its
+   * sending at the end of its period (if it is sent before). The caller must
+   * hold the lock of the encoder.
+   * 
+   * @param encoder
+   *          the telemetry encoder
+   */
+  private void sendTelemetry(TelemetryEncoder encoder) {
+    if (this.telemetryFlush != null) {
+      this.telemetryFlush.cancel(false);
+      this.telemetryFlush = null;
+    }
+    this.socket.emit(WebSocketsTelegraf.TELEMETRY_EVENT,
+        encoder.encodeToString());
+  }
+
+  /**
+   * Helper method used to add the measured value of an event to the current
+   * telemetry batch. The batch is sent at the end of its period, either when
+   * a new value is added or by the batch timer (so the last values of a
+   * sensor which stops sending values are not kept until the next ones).
+   * 
+   * NOTE: the events with <code>EventPriority.VERY_HIGH</code> are never
+   * added to the telemetry batch, so they are not delayed by its period.
+   * 
+   * @param event
+   *          the event
+   * @return true if the value was added to the batch, false if the event has
+   *         to be sent by itself
+   */
+  private boolean addToTelemetry(Event< ?> event) {
+    TelemetryEncoder encoder = this.telemetryEncoder;
+    if (encoder == null || !(event instanceof MeasurementEvent)
+        || event.getPriority() == EventPriority.VERY_HIGH) {
+      return false;
+    }
+    synchronized (encoder) {
+      if (!encoder.add(event)) {
+        return false;
+      }
+      if (encoder.getCount() == 1) {
+        this.telemetryStartTime = System.nanoTime();
+        this.telemetryFlush = WebSocketsTelegraf.getBatchTimer().schedule(
+            this.telemetryFlusher, this.telemetryPeriod, TimeUnit.MILLISECONDS);
+      }
+      long age = event.getOccurrenceTime() - encoder.getStartTime();
+      if (age >= this.telemetryPeriod) {
+        this.sendTelemetry(encoder);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Helper method used to offer the supported codecs, telemetry encodings
+   * and batch formats (and the schemas of the events, for the binary frames)
+   * to the server. The events are sent as JSON until the server selects
+   * another codec.
+   * 
+   * @throws JSONException
+   */
+  private void offerCodecs() throws JSONException {
+    this.binaryCodec = null;
+    this.telemetryEncoder = null;
+    this.batchAccepted = false;
+    if (!this.binaryCodecOffered && this.telemetryPeriod <= 0
+        && this.batchMaxSize <= 0) {
+      return;
+    }
+    JSONObject offer = new JSONObject();
+    JSONArray codecs = new JSONArray();
+    if (this.binaryCodecOffered) {
+      codecs.put(BinaryEventCodec.NAME);
+    }
+    codecs.put(WebSocketsTelegraf.JSON_CODEC);
+    offer.put("codecs", codecs);
+    if (this.telemetryPeriod > 0) {
+      JSONArray telemetry = new JSONArray();
+      telemetry.put(TelemetryEncoder.NAME);
+      offer.put("telemetry", telemetry);
+    }
+    if (this.batchMaxSize > 0) {
+      JSONArray batching = new JSONArray();
+      batching.put(WebSocketsTelegraf.BATCH_FORMAT);
+      offer.put("batching", batching);
+    }
+    offer.put("schemas", EventSchemas.toJson());
+    this.socket.emit(WebSocketsTelegraf.CODEC_OFFER_EVENT, offer);
   }
 
   @Override
   public void disconnect() {
     if (this.socket != null && this.socket.isConnected()) {
+      this.flushTelemetry();
+      this.flushBatch();
       this.socket.disconnect();
     }
   }
@@ -111,6 +539,8 @@ public class WebSocketsTelegraf extends Telegraf< SocketIO, String> implements
       } catch (InterruptedException e) {
         e.printStackTrace();
       }
+    } else if (WebSocketsTelegraf.CODEC_SELECTED_EVENT.equals(eventType)) {
+      this.selectCodec(arg2);
     } else if (eventType == DisconnectedEvent.class.getSimpleName()) {
       try {
         Thread.sleep(100);
@@ -121,6 +551,46 @@ public class WebSocketsTelegraf extends Telegraf< SocketIO, String> implements
     }
   }
 
+  /**
+   * Helper method used to apply the codec selected by the server.
+   * 
+   * @param args
+   *          the arguments of the server answer (the first one is expected
+   *          to be a JSON object with the <code>codec</code> property, and
+   *          the <code>telemetry</code> and <code>batching</code> properties
+   *          if the telemetry batches and the event batches are accepted)
+   */
+  private void selectCodec(Object... args) {
+    String codec = null;
+    String telemetry = null;
+    String batching = null;
+    if (args != null && args.length > 0 && args[0] instanceof JSONObject) {
+      codec = ((JSONObject) args[0]).optString("codec", null);
+      telemetry = ((JSONObject) args[0]).optString("telemetry", null);
+      batching = ((JSONObject) args[0]).optString("batching", null);
+    }
+    this.batchAccepted = this.batchMaxSize > 0
+        && WebSocketsTelegraf.BATCH_FORMAT.equals(batching);
+    if (this.telemetryPeriod > 0 && TelemetryEncoder.NAME.equals(telemetry)) {
+      this.telemetryEncoder = new TelemetryEncoder();
+    } else {
+      this.telemetryEncoder = null;
+    }
+    if (this.binaryCodecOffered && BinaryEventCodec.NAME.equals(codec)) {
+      this.binaryCodec = new BinaryEventCodec();
+    } else {
+      this.binaryCodec = null;
+    }
+    this.logger.info(this.getClass().getSimpleName(), "The "
+        + (this.binaryCodec != null ? BinaryEventCodec.NAME
+            : WebSocketsTelegraf.JSON_CODEC)
+        + " codec was selected by the server"
+        + (this.telemetryEncoder != null ? ", with " + TelemetryEncoder.NAME
+            + " telemetry batches" : "")
+        + (this.batchAccepted ? ", with " + WebSocketsTelegraf.BATCH_FORMAT
+            + " event batches." : "."));
+  }
+
   @Override
   public void onConnect() {
     // TODO: actions taken when the connection with server is established
@@ -128,6 +598,10 @@ public class WebSocketsTelegraf extends Telegraf< SocketIO, String> implements
 
   @Override
   public void onDisconnect() {
+    // the next connection starts again with JSON
+    this.binaryCodec = null;
+    this.telemetryEncoder = null;
+    this.batchAccepted = false;
     this.logger.info(this.getClass().getSimpleName(),
         "Disconnected from server.");
     // TODO: actions taken when the connection with server is closed
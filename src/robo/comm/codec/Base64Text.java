@@ -0,0 +1,56 @@
+package robo.comm.codec;
+
+/**
+ * Encode the binary frames as Base64 text (the socket.io transport only
+ * carries text messages). The text buffer is reused for all the frames.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 01:12:37
+ * 
+ */
+final class Base64Text {
+  // the Base64 alphabet
+  private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+      .toCharArray();
+  // the buffer used for the text
+  private char[] text = new char[128];
+
+  /**
+   * Encode bytes as Base64 text (with padding).
+   * 
+   * @param bytes
+   *          the bytes
+   * @param length
+   *          the number of bytes to encode
+   * @return the Base64 text
+   */
+  String encode(byte[] bytes, int length) {
+    int textLength = ((length + 2) / 3) * 4;
+    if (this.text.length < textLength) {
+      this.text = new char[Math.max(textLength, this.text.length * 2)];
+    }
+    char[] text = this.text;
+    int position = 0;
+    int i = 0;
+    for (; i + 2 < length; i += 3) {
+      int bits = ((bytes[i] & 0xFF) << 16) | ((bytes[i + 1] & 0xFF) << 8)
+          | (bytes[i + 2] & 0xFF);
+      text[position++] = Base64Text.ALPHABET[bits >>> 18];
+      text[position++] = Base64Text.ALPHABET[(bits >>> 12) & 0x3F];
+      text[position++] = Base64Text.ALPHABET[(bits >>> 6) & 0x3F];
+      text[position++] = Base64Text.ALPHABET[bits & 0x3F];
+    }
+    if (i < length) {
+      int bits = (bytes[i] & 0xFF) << 16;
+      if (i + 1 < length) {
+        bits |= (bytes[i + 1] & 0xFF) << 8;
+      }
+      text[position++] = Base64Text.ALPHABET[bits >>> 18];
+      text[position++] = Base64Text.ALPHABET[(bits >>> 12) & 0x3F];
+      text[position++] = i + 1 < length ? Base64Text.ALPHABET[(bits >>> 6) & 0x3F]
+          : '=';
+      text[position++] = '=';
+    }
+    return new String(text, 0, position);
+  }
+}
@@ -0,0 +1,70 @@
+package robo.comm.codec;
+
+import java.util.Arrays;
+
+/**
+ * The buffer where a bit stream is written (the most significant bit of each
+ * byte first). The buffer is reused, so writing allocates nothing (except
+ * when the buffer has to grow).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 01:12:37
+ * 
+ */
+final class BitWriter {
+  // the written bits
+  private byte[] buffer = new byte[32];
+  // the number of written bits
+  private long size = 0;
+
+  /**
+   * Start a new bit stream (the previous bits are discarded).
+   */
+  void reset() {
+    Arrays.fill(this.buffer, 0, this.getByteSize(), (byte) 0);
+    this.size = 0;
+  }
+
+  /**
+   * Get the number of bytes used by the written bits (the last byte is
+   * padded with zero bits).
+   * 
+   * @return the number of bytes
+   */
+  int getByteSize() {
+    return (int) ((this.size + 7) >>> 3);
+  }
+
+  byte[] getBuffer() {
+    return this.buffer;
+  }
+
+  void writeBit(boolean bit) {
+    this.writeBits(bit ? 1 : 0, 1);
+  }
+
+  /**
+   * Write the lowest bits of a value, the most significant first.
+   * 
+   * @param value
+   *          the value
+   * @param count
+   *          the number of bits, from 0 to 64
+   */
+  void writeBits(long value, int count) {
+    int bytes = (int) ((this.size + count + 7) >>> 3);
+    if (bytes > this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer,
+          Math.max(bytes, this.buffer.length * 2));
+    }
+    while (count > 0) {
+      int position = (int) (this.size >>> 3);
+      int free = 8 - (int) (this.size & 7);
+      int n = Math.min(free, count);
+      int chunk = (int) ((value >>> (count - n)) & ((1 << n) - 1));
+      this.buffer[position] |= (byte) (chunk << (free - n));
+      this.size += n;
+      count -= n;
+    }
+  }
+}
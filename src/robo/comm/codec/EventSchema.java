@@ -0,0 +1,143 @@
+package robo.comm.codec;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import robo.model.Entity;
+import robo.model.event.Event;
+
+/**
+ * The binary layout of an event type: its numeric type identifier and its
+ * own fields (the ones serialized in addition to the fields common to all
+ * the events), which are written in the declared order and without names.
+ * The schemas are sent to the server when the binary codec is negotiated, so
+ * the server can decode the frames.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 23:52:40
+ * 
+ * @param <E>
+ *          the event type
+ */
+public class EventSchema< E extends Event< ?>> {
+  /**
+   * The kinds of the fields.
+   */
+  public enum FieldKind {
+    // a boolean, written on one byte
+    BOOLEAN,
+    // a signed integer, zigzag encoded as a variable length number
+    LONG,
+    // a double, written on 8 bytes
+    DOUBLE,
+    // a UTF-8 string, preceded by its length
+    STRING,
+    // the ordinal of an enumeration value plus one (0 for null), as a
+    // variable length number
+    ENUM,
+    // a JSON value, written as a string
+    JSON
+  }
+
+  // the event type
+  private final Class< E> eventType;
+  // the numeric type identifier
+  private final int typeId;
+  // the names of the fields
+  private final String[] fieldNames;
+  // the kinds of the fields
+  private final FieldKind[] fieldKinds;
+  // the values of the enumeration fields (null for the other fields)
+  private final Enum< ?>[][] enumValues;
+
+  /**
+   * Create a schema.
+   * 
+   * @param eventType
+   *          the event type (the schema is only used for this exact class,
+   *          not for its subclasses)
+   * @param typeId
+   *          the numeric type identifier (positive, unique among the
+   *          registered schemas)
+   * @param fields
+   *          the fields, as pairs of name and kind (or enumeration class, for
+   *          the enumeration fields), e.g.
+   *          <code>"voltage", FieldKind.DOUBLE, "unit", Voltage.class</code>
+   */
+  public EventSchema(Class< E> eventType, int typeId, Object... fields) {
+    if (eventType == null || typeId <= 0 || fields.length % 2 != 0) {
+      throw new IllegalArgumentException(
+          "Invalid event type, type identifier or fields when calling EventSchema("
+              + eventType + ", " + typeId + ", ...)!");
+    }
+    this.eventType = eventType;
+    this.typeId = typeId;
+    int count = fields.length / 2;
+    this.fieldNames = new String[count];
+    this.fieldKinds = new FieldKind[count];
+    this.enumValues = new Enum< ?>[count][];
+    for (int i = 0; i < count; i++) {
+      this.fieldNames[i] = (String) fields[2 * i];
+      Object kind = fields[2 * i + 1];
+      if (kind instanceof Class && ((Class< ?>) kind).isEnum()) {
+        this.fieldKinds[i] = FieldKind.ENUM;
+        this.enumValues[i] = (Enum< ?>[]) ((Class< ?>) kind)
+            .getEnumConstants();
+      } else {
+        this.fieldKinds[i] = (FieldKind) kind;
+      }
+    }
+  }
+
+  public Class< E> getEventType() {
+    return this.eventType;
+  }
+
+  public int getTypeId() {
+    return this.typeId;
+  }
+
+  /**
+   * Write the fields of an event, in the declared order. The schemas of the
+   * event types having their own fields must override this method.
+   * 
+   * @param event
+   *          the event
+   * @param writer
+   *          the frame writer
+   */
+  public void write(E event, FrameWriter writer) {
+    // nothing to do here (no own fields)
+  }
+
+  /**
+   * Get the description of the schema, as sent to the server: the type name,
+   * the type identifier and the fields (with the names of the enumeration
+   * values, in the order of their ordinals).
+   * 
+   * @return the description of the schema
+   * @throws JSONException
+   */
+  public JSONObject toJson() throws JSONException {
+    JSONObject result = new JSONObject();
+    result.put("type", Entity.getTypeName(this.eventType));
+    result.put("id", this.typeId);
+    JSONArray fields = new JSONArray();
+    for (int i = 0; i < this.fieldNames.length; i++) {
+      JSONObject field = new JSONObject();
+      field.put("name", this.fieldNames[i]);
+      field.put("kind", this.fieldKinds[i].name());
+      if (this.enumValues[i] != null) {
+        JSONArray values = new JSONArray();
+        for (Enum< ?> value : this.enumValues[i]) {
+          values.put(value.name());
+        }
+        field.put("values", values);
+      }
+      fields.put(field);
+    }
+    result.put("fields", fields);
+    return result;
+  }
+}
@@ -0,0 +1,212 @@
+package robo.comm.codec;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import robo.model.MeasurementUnit;
+import robo.model.event.CycleOverrunEvent;
+import robo.model.event.Event;
+import robo.model.event.StartedEvent;
+import robo.model.event.StoppedEvent;
+import robo.model.event.WoTComponentEvent;
+import robo.model.event.actuator.ActuatorCommandEvent;
+import robo.model.event.actuator.ActuatorStateChangeEvent;
+import robo.model.event.actuator.DisableRelayEvent;
+import robo.model.event.actuator.EnableRelayEvent;
+import robo.model.event.actuator.RelayDisabledEvent;
+import robo.model.event.actuator.RelayEnabledEvent;
+import robo.model.event.comm.AuthenticationFailedEvent;
+import robo.model.event.comm.ConnectedEvent;
+import robo.model.event.comm.DisableCommunicationEvent;
+import robo.model.event.comm.DisconnectRequestEvent;
+import robo.model.event.comm.DisconnectedEvent;
+import robo.model.event.comm.EnableCommunicationEvent;
+import robo.model.event.hid.ButtonPressedEvent;
+import robo.model.event.hid.HidEvent;
+import robo.model.event.hid.HidInputEvent;
+import robo.model.event.hid.HidOutputEvent;
+import robo.model.event.sensor.electric.BatteryLevelSensorEvent;
+import robo.model.event.sensor.electric.VoltageSensorEvent;
+import robo.model.event.sensor.optical.OpticalSensorEvent;
+import robo.model.event.sensor.optical.PhotoResistorSensorEvent;
+import robo.model.event.sensor.proximity.DistanceSensorEvent;
+import robo.model.event.sensor.proximity.ProximitySensorEvent;
+import robo.model.event.sensor.weather.TemperatureSensorEvent;
+import robo.model.event.time.PeriodicTimeEvent;
+
+/**
+ * The registry of the event schemas used by the binary codec. The schemas of
+ * all the event types of the library are registered, with the same fields as
+ * their JSON form; the applications register the schemas of their own event
+ * types (with type identifiers from <code>FIRST_APPLICATION_TYPE_ID</code>).
+ * The events without a registered schema (including the subclasses of the
+ * registered types) are sent as JSON.
+ * 
+ * NOTE: the schemas have to be registered before connecting, since the server
+ * receives the registered schemas when the codec is negotiated.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 23:52:40
+ * 
+ */
+public final class EventSchemas {
+  // the first type identifier available for the event types of the
+  // applications (the smaller ones are reserved for the library)
+  public static final int FIRST_APPLICATION_TYPE_ID = 1024;
+  // the registered schemas, for each event type
+  private static final ConcurrentHashMap< Class< ?>, EventSchema< ?>> schemas = new ConcurrentHashMap< Class< ?>, EventSchema< ?>>();
+  // the registered schemas, for each type identifier
+  private static final ConcurrentHashMap< Integer, EventSchema< ?>> schemasById = new ConcurrentHashMap< Integer, EventSchema< ?>>();
+
+  static {
+    EventSchemas.register(new EventSchema< StartedEvent>(StartedEvent.class, 1));
+    EventSchemas.register(new EventSchema< StoppedEvent>(StoppedEvent.class, 2));
+    EventSchemas.register(new EventSchema< CycleOverrunEvent>(
+        CycleOverrunEvent.class, 3));
+    EventSchemas.register(new EventSchema< WoTComponentEvent>(
+        WoTComponentEvent.class, 4));
+    EventSchemas.register(new EventSchema< PeriodicTimeEvent>(
+        PeriodicTimeEvent.class, 5));
+    // actuator events
+    EventSchemas.register(new EventSchema< ActuatorCommandEvent>(
+        ActuatorCommandEvent.class, 16));
+    EventSchemas.register(new EventSchema< ActuatorStateChangeEvent>(
+        ActuatorStateChangeEvent.class, 17));
+    EventSchemas.register(new EventSchema< EnableRelayEvent>(
+        EnableRelayEvent.class, 18));
+    EventSchemas.register(new EventSchema< DisableRelayEvent>(
+        DisableRelayEvent.class, 19));
+    EventSchemas.register(new EventSchema< RelayEnabledEvent>(
+        RelayEnabledEvent.class, 20));
+    EventSchemas.register(new EventSchema< RelayDisabledEvent>(
+        RelayDisabledEvent.class, 21));
+    // communication events (the authentication request is always sent as
+    // JSON, before the codec is negotiated)
+    EventSchemas.register(new EventSchema< AuthenticationFailedEvent>(
+        AuthenticationFailedEvent.class, 32));
+    EventSchemas.register(new EventSchema< ConnectedEvent>(
+        ConnectedEvent.class, 33));
+    EventSchemas.register(new EventSchema< DisconnectedEvent>(
+        DisconnectedEvent.class, 34));
+    EventSchemas.register(new EventSchema< DisconnectRequestEvent>(
+        DisconnectRequestEvent.class, 35));
+    EventSchemas.register(new EventSchema< EnableCommunicationEvent>(
+        EnableCommunicationEvent.class, 36));
+    EventSchemas.register(new EventSchema< DisableCommunicationEvent>(
+        DisableCommunicationEvent.class, 37));
+    // HID events
+    EventSchemas.register(new EventSchema< HidEvent>(HidEvent.class, 48));
+    EventSchemas.register(new EventSchema< HidInputEvent>(HidInputEvent.class,
+        49, "data", EventSchema.FieldKind.JSON) {
+      @Override
+      public void write(HidInputEvent event, FrameWriter writer) {
+        writer.writeString(event.getData() != null ? event.getData()
+            .toString() : null);
+      }
+    });
+    EventSchemas.register(new EventSchema< HidOutputEvent>(
+        HidOutputEvent.class, 50, "data", EventSchema.FieldKind.JSON) {
+      @Override
+      public void write(HidOutputEvent event, FrameWriter writer) {
+        writer.writeString(event.getData() != null ? event.getData()
+            .toString() : null);
+      }
+    });
+    EventSchemas.register(new EventSchema< ButtonPressedEvent>(
+        ButtonPressedEvent.class, 51, "data", EventSchema.FieldKind.JSON) {
+      @Override
+      public void write(ButtonPressedEvent event, FrameWriter writer) {
+        writer.writeString(event.getData() != null ? event.getData()
+            .toString() : null);
+      }
+    });
+    // sensor events
+    EventSchemas.register(new EventSchema< VoltageSensorEvent>(
+        VoltageSensorEvent.class, 64, "unit",
+        MeasurementUnit.Electric.Voltage.class, "voltage",
+        EventSchema.FieldKind.DOUBLE) {
+      @Override
+      public void write(VoltageSensorEvent event, FrameWriter writer) {
+        writer.writeEnum(event.getUnit());
+        writer.writeDouble(event.getVoltage());
+      }
+    });
+    EventSchemas.register(new EventSchema< BatteryLevelSensorEvent>(
+        BatteryLevelSensorEvent.class, 65, "unit",
+        MeasurementUnit.Generic.class, "batteryLevel",
+        EventSchema.FieldKind.DOUBLE) {
+      @Override
+      public void write(BatteryLevelSensorEvent event, FrameWriter writer) {
+        writer.writeEnum(event.getUnit());
+        writer.writeDouble(event.getBatteryLevel());
+      }
+    });
+    EventSchemas.register(new EventSchema< OpticalSensorEvent>(
+        OpticalSensorEvent.class, 66));
+    EventSchemas.register(new EventSchema< PhotoResistorSensorEvent>(
+        PhotoResistorSensorEvent.class, 67));
+    EventSchemas.register(new EventSchema< ProximitySensorEvent>(
+        ProximitySensorEvent.class, 68));
+    EventSchemas.register(new EventSchema< DistanceSensorEvent>(
+        DistanceSensorEvent.class, 69));
+    EventSchemas.register(new EventSchema< TemperatureSensorEvent>(
+        TemperatureSensorEvent.class, 70));
+  }
+
+  private EventSchemas() {
+  }
+
+  /**
+   * Register the schema of an event type.
+   * 
+   * @param schema
+   *          the schema
+   */
+  public static void register(EventSchema< ?> schema) {
+    EventSchema< ?> other = EventSchemas.schemasById.putIfAbsent(
+        schema.getTypeId(), schema);
+    if (other != null && other.getEventType() != schema.getEventType()) {
+      throw new IllegalArgumentException("The type identifier "
+          + schema.getTypeId() + " is already used by "
+          + other.getEventType().getName()
+          + " when calling EventSchemas.register("
+          + schema.getEventType().getName() + ")!");
+    }
+    EventSchema< ?> previous = EventSchemas.schemas.put(
+        schema.getEventType(), schema);
+    if (previous != null && previous.getTypeId() != schema.getTypeId()) {
+      EventSchemas.schemasById.remove(previous.getTypeId(), previous);
+    }
+    EventSchemas.schemasById.put(schema.getTypeId(), schema);
+  }
+
+  /**
+   * Get the schema of an event type.
+   * 
+   * @param eventType
+   *          the event type
+   * @return the schema, or null if no schema was registered for this exact
+   *         type
+   */
+  @SuppressWarnings("unchecked")
+  public static < E extends Event< ?>> EventSchema< E> get(Class< ?> eventType) {
+    return (EventSchema< E>) EventSchemas.schemas.get(eventType);
+  }
+
+  /**
+   * Get the descriptions of all the registered schemas, as sent to the server
+   * when the codec is negotiated.
+   * 
+   * @return the descriptions of the schemas
+   * @throws JSONException
+   */
+  public static JSONArray toJson() throws JSONException {
+    JSONArray result = new JSONArray();
+    for (EventSchema< ?> schema : EventSchemas.schemas.values()) {
+      result.put(schema.toJson());
+    }
+    return result;
+  }
+}
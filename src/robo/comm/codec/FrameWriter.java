@@ -0,0 +1,182 @@
+package robo.comm.codec;
+
+/**
+ * The buffer where a binary frame is written. The integers are written as
+ * variable length numbers (7 bits for each byte, the most significant bit
+ * being set for all the bytes except the last one), and the signed integers
+ * are zigzag encoded before (so small negative numbers are also short). The
+ * buffer is reused for all the frames of a connection, so writing a frame
+ * allocates nothing (except when the buffer has to grow).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 23:52:40
+ * 
+ */
+public final class FrameWriter {
+  // the written bytes
+  private byte[] buffer = new byte[64];
+  // the number of written bytes
+  private int size = 0;
+
+  /**
+   * Start a new frame (the previous frame is discarded).
+   */
+  public void reset() {
+    this.size = 0;
+  }
+
+  public int getSize() {
+    return this.size;
+  }
+
+  /**
+   * Get the buffer of the frame (only the first <code>getSize()</code> bytes
+   * are part of the frame).
+   * 
+   * @return the buffer
+   */
+  public byte[] getBuffer() {
+    return this.buffer;
+  }
+
+  public void writeByte(int value) {
+    this.ensureCapacity(1);
+    this.buffer[this.size++] = (byte) value;
+  }
+
+  public void writeBoolean(boolean value) {
+    this.writeByte(value ? 1 : 0);
+  }
+
+  /**
+   * Write a non-negative integer, as a variable length number.
+   * 
+   * @param value
+   *          the value (negative values are written on 10 bytes)
+   */
+  public void writeVarLong(long value) {
+    this.ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    this.buffer[this.size++] = (byte) value;
+  }
+
+  /**
+   * Write a signed integer, zigzag encoded as a variable length number.
+   * 
+   * @param value
+   *          the value
+   */
+  public void writeZigZagLong(long value) {
+    this.writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  /**
+   * Write an enumeration value: its ordinal plus one (0 for null), as a
+   * variable length number.
+   * 
+   * @param value
+   *          the value
+   */
+  public void writeEnum(Enum< ?> value) {
+    this.writeVarLong(value != null ? value.ordinal() + 1 : 0);
+  }
+
+  /**
+   * Write a double value (the 8 bytes of its IEEE 754 form, the most
+   * significant first).
+   * 
+   * @param value
+   *          the value
+   */
+  public void writeDouble(double value) {
+    long bits = Double.doubleToLongBits(value);
+    this.ensureCapacity(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      this.buffer[this.size++] = (byte) (bits >>> shift);
+    }
+  }
+
+  /**
+   * Write bytes, as they are.
+   * 
+   * @param bytes
+   *          the bytes
+   * @param length
+   *          the number of bytes to write
+   */
+  public void writeBytes(byte[] bytes, int length) {
+    this.ensureCapacity(length);
+    System.arraycopy(bytes, 0, this.buffer, this.size, length);
+    this.size += length;
+  }
+
+  /**
+   * Write a string: its length in bytes (as a variable length number)
+   * followed by its UTF-8 bytes. A null string is written as an empty
+   * string.
+   * 
+   * @param value
+   *          the string
+   */
+  public void writeString(String value) {
+    if (value == null) {
+      this.writeVarLong(0);
+      return;
+    }
+    int length = 0;
+    for (int i = 0, n = value.length(); i < n; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < n
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    this.writeVarLong(length);
+    this.ensureCapacity(length);
+    for (int i = 0, n = value.length(); i < n; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        this.buffer[this.size++] = (byte) c;
+      } else if (c < 0x800) {
+        this.buffer[this.size++] = (byte) (0xC0 | (c >> 6));
+        this.buffer[this.size++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < n
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        this.buffer[this.size++] = (byte) (0xF0 | (codePoint >> 18));
+        this.buffer[this.size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        this.buffer[this.size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        this.buffer[this.size++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else {
+        this.buffer[this.size++] = (byte) (0xE0 | (c >> 12));
+        this.buffer[this.size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        this.buffer[this.size++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+  }
+
+  /**
+   * Helper method used to grow the buffer, if needed.
+   * 
+   * @param length
+   *          the number of bytes which are going to be written
+   */
+  private void ensureCapacity(int length) {
+    if (this.size + length > this.buffer.length) {
+      byte[] buffer = new byte[Math.max(this.buffer.length * 2, this.size
+          + length)];
+      System.arraycopy(this.buffer, 0, buffer, 0, this.size);
+      this.buffer = buffer;
+    }
+  }
+}
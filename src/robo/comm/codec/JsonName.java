@@ -0,0 +1,33 @@
+package robo.comm.codec;
+
+/**
+ * The name of a JSON field, precomputed (quoted, escaped and followed by the
+ * colon) so writing it is only a copy. The names are created once, as
+ * constants of the classes writing the fields.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 00:31:52
+ * 
+ */
+public final class JsonName {
+  // the name
+  private final String name;
+  // the JSON form of the name, e.g. "voltage":
+  final char[] chars;
+
+  public JsonName(String name) {
+    this.name = name;
+    StringBuilder result = new StringBuilder(name.length() + 3);
+    JsonWriter.appendQuoted(result, name);
+    result.append(':');
+    this.chars = result.toString().toCharArray();
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public String toString() {
+    return this.name;
+  }
+}
@@ -0,0 +1,285 @@
+package robo.comm.codec;
+
+import org.json.JSONString;
+
+import robo.model.Entity;
+
+/**
+ * Write JSON text directly into a reusable buffer, without building a tree
+ * of <code>JSONObject</code>s. The entities write their own fields (see
+ * <code>Entity.writeJsonFields</code>), with precomputed field names, so
+ * serializing an entity allocates nothing except the resulting string. The
+ * separators between the fields (and the array elements) are added by the
+ * writer.
+ * 
+ * The writer is also a <code>JSONString</code>, so it can be given directly
+ * to the <code>org.json</code> based libraries (e.g. as an argument of a
+ * socket.io message), which then copy its text instead of serializing a
+ * tree.
+ * 
+ * NOTE: the writer is meant to be reused (e.g. for all the events sent by a
+ * connection), so it is not thread safe, and its text is only valid until
+ * the writer is reset.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 00:31:52
+ * 
+ */
+public final class JsonWriter implements JSONString {
+  // the maximum depth of the nested objects and arrays
+  private static final int MAX_DEPTH = 64;
+  // the hexadecimal digits (used for the escaped characters)
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  // the written text
+  private final StringBuilder text = new StringBuilder(256);
+  // the depth of the current object or array (0 if none was started)
+  private int depth = 0;
+  // true if the current object (or array) has no fields (or elements) yet,
+  // for each depth
+  private final boolean[] empty = new boolean[JsonWriter.MAX_DEPTH + 1];
+  // true if the current container is an array, for each depth
+  private final boolean[] array = new boolean[JsonWriter.MAX_DEPTH + 1];
+
+  /**
+   * Start a new text (the previous text is discarded).
+   * 
+   * @return this writer
+   */
+  public JsonWriter reset() {
+    this.text.setLength(0);
+    this.depth = 0;
+    return this;
+  }
+
+  /**
+   * Write an entity, as a JSON object.
+   * 
+   * @param entity
+   *          the entity
+   * @return this writer
+   */
+  public JsonWriter write(Entity entity) {
+    this.beginObject();
+    entity.writeJsonFields(this);
+    return this.endObject();
+  }
+
+  /**
+   * Start an object (a field value, if a name was written before, an array
+   * element, or the top level object).
+   * 
+   * @return this writer
+   */
+  public JsonWriter beginObject() {
+    if (this.depth == JsonWriter.MAX_DEPTH) {
+      throw new IllegalStateException("More than " + JsonWriter.MAX_DEPTH
+          + " nested objects when calling JsonWriter.beginObject()!");
+    }
+    this.beforeValue();
+    this.text.append('{');
+    this.empty[++this.depth] = true;
+    this.array[this.depth] = false;
+    return this;
+  }
+
+  /**
+   * Start an array (a field value, if a name was written before, an array
+   * element, or the top level array). The values written next are the
+   * elements of the array.
+   * 
+   * @return this writer
+   */
+  public JsonWriter beginArray() {
+    if (this.depth == JsonWriter.MAX_DEPTH) {
+      throw new IllegalStateException("More than " + JsonWriter.MAX_DEPTH
+          + " nested arrays when calling JsonWriter.beginArray()!");
+    }
+    this.beforeValue();
+    this.text.append('[');
+    this.empty[++this.depth] = true;
+    this.array[this.depth] = true;
+    return this;
+  }
+
+  /**
+   * End the current array.
+   * 
+   * @return this writer
+   */
+  public JsonWriter endArray() {
+    if (this.depth == 0 || !this.array[this.depth]) {
+      throw new IllegalStateException(
+          "No array was started when calling JsonWriter.endArray()!");
+    }
+    this.text.append(']');
+    this.depth--;
+    return this;
+  }
+
+  /**
+   * End the current object.
+   * 
+   * @return this writer
+   */
+  public JsonWriter endObject() {
+    if (this.depth == 0 || this.array[this.depth]) {
+      throw new IllegalStateException(
+          "No object was started when calling JsonWriter.endObject()!");
+    }
+    this.text.append('}');
+    this.depth--;
+    return this;
+  }
+
+  /**
+   * Write the name of a field of the current object. The value has to be
+   * written next.
+   * 
+   * @param name
+   *          the name
+   * @return this writer
+   */
+  public JsonWriter name(JsonName name) {
+    if (this.empty[this.depth]) {
+      this.empty[this.depth] = false;
+    } else {
+      this.text.append(',');
+    }
+    this.text.append(name.chars);
+    return this;
+  }
+
+  public JsonWriter value(String value) {
+    this.beforeValue();
+    if (value == null) {
+      this.text.append("null");
+    } else {
+      JsonWriter.appendQuoted(this.text, value);
+    }
+    return this;
+  }
+
+  public JsonWriter value(long value) {
+    this.beforeValue();
+    this.text.append(value);
+    return this;
+  }
+
+  /**
+   * Write a double value (NaN and the infinite values, which have no JSON
+   * form, are written as null).
+   * 
+   * @param value
+   *          the value
+   * @return this writer
+   */
+  public JsonWriter value(double value) {
+    this.beforeValue();
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      this.text.append("null");
+    } else {
+      this.text.append(value);
+    }
+    return this;
+  }
+
+  public JsonWriter value(boolean value) {
+    this.beforeValue();
+    this.text.append(value);
+    return this;
+  }
+
+  /**
+   * Write a value which is already JSON text (e.g. a <code>JSONObject</code>
+   * given by the user).
+   * 
+   * @param json
+   *          the JSON value (its <code>toString</code> is used)
+   * @return this writer
+   */
+  public JsonWriter rawValue(Object json) {
+    this.beforeValue();
+    this.text.append(json != null ? json.toString() : "null");
+    return this;
+  }
+
+  /**
+   * Get the length of the written text.
+   * 
+   * @return the number of written characters
+   */
+  public int getLength() {
+    return this.text.length();
+  }
+
+  /**
+   * Get the written text.
+   * 
+   * @return the JSON text
+   */
+  @Override
+  public String toJSONString() {
+    return this.text.toString();
+  }
+
+  public String toString() {
+    return this.text.toString();
+  }
+
+  /**
+   * Helper method used to separate the elements of an array.
+   */
+  private void beforeValue() {
+    if (this.array[this.depth]) {
+      if (this.empty[this.depth]) {
+        this.empty[this.depth] = false;
+      } else {
+        this.text.append(',');
+      }
+    }
+  }
+
+  /**
+   * Helper method used to append a quoted and escaped string.
+   * 
+   * @param text
+   *          the text where the string is appended
+   * @param value
+   *          the string
+   */
+  static void appendQuoted(StringBuilder text, String value) {
+    text.append('"');
+    for (int i = 0, n = value.length(); i < n; i++) {
+      char c = value.charAt(i);
+      switch (c) {
+      case '"':
+        text.append("\\\"");
+        break;
+      case '\\':
+        text.append("\\\\");
+        break;
+      case '\n':
+        text.append("\\n");
+        break;
+      case '\r':
+        text.append("\\r");
+        break;
+      case '\t':
+        text.append("\\t");
+        break;
+      default:
+        // the line separators are also escaped, since they are not allowed
+        // in the JavaScript strings
+        if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+          text.append("\\u").append(JsonWriter.HEX[c >> 12])
+              .append(JsonWriter.HEX[(c >> 8) & 0xF])
+              .append(JsonWriter.HEX[(c >> 4) & 0xF])
+              .append(JsonWriter.HEX[c & 0xF]);
+        } else {
+          text.append(c);
+        }
+      }
+    }
+    text.append('"');
+  }
+}
@@ -0,0 +1,54 @@
+package robo.comm.codec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import robo.model.PhysicalAgent;
+
+/**
+ * The sources interned for a connection, so each source identifier (and name)
+ * is sent only once. A source is written as a reference: 0 = no source, n =
+ * the source interned at position n - 1; a reference equal to the number of
+ * interned sources plus one interns a new source, and is followed by its
+ * identifier and name (strings).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 01:12:37
+ * 
+ */
+final class SourceTable {
+  // the interned sources (their identifiers and positions)
+  private final Map< String, Integer> positions = new HashMap< String, Integer>();
+
+  /**
+   * Write the reference of a source (and intern the source, if needed).
+   * 
+   * @param source
+   *          the source (null if none)
+   * @param writer
+   *          the frame writer
+   */
+  void write(PhysicalAgent source, FrameWriter writer) {
+    if (source == null) {
+      writer.writeVarLong(0);
+      return;
+    }
+    Integer position = this.positions.get(source.getId());
+    if (position != null) {
+      writer.writeVarLong(position.intValue() + 1);
+    } else {
+      position = this.positions.size();
+      this.positions.put(source.getId(), position);
+      writer.writeVarLong(position.intValue() + 1);
+      writer.writeString(source.getId());
+      writer.writeString(source.getName());
+    }
+  }
+
+  /**
+   * Forget all the interned sources.
+   */
+  void clear() {
+    this.positions.clear();
+  }
+}
@@ -0,0 +1,181 @@
+package robo.comm.codec;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import robo.model.PhysicalAgent;
+import robo.model.event.Event;
+import robo.model.event.sensor.MeasurementEvent;
+
+/**
+ * Collect the measured values of the sensor events into time series (one for
+ * each sensor), and encode them as compressed telemetry batches (see
+ * <code>TimeSeriesEncoder</code>), for one connection. A batch contains:
+ * 
+ * <pre>
+ * series count          varint
+ * base time             zigzag varint, the difference from the base time
+ *                       of the previous batch
+ * for each series:
+ *   source reference    as for the binary codec (see BinaryEventCodec)
+ *   type identifier     varint (see EventSchemas)
+ *   unit                enumeration value (see FrameWriter.writeEnum)
+ *   sample count        varint
+ *   first time          zigzag varint, the difference from the base time
+ *   samples             varint byte length, then the compressed samples
+ * </pre>
+ * 
+ * NOTE: the encoder keeps the state of the connection (the interned sources,
+ * with their own table, and the previous base time), so the batches must be
+ * sent in the order they were encoded. The encoder is not thread safe.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 01:12:37
+ * 
+ */
+public class TelemetryEncoder {
+  // the name of the telemetry encoding, as used for the negotiation
+  public static final String NAME = "gorilla/1";
+  // the series, for each source
+  private final Map< PhysicalAgent, TimeSeriesEncoder> series = new HashMap< PhysicalAgent, TimeSeriesEncoder>();
+  // the frame writer (reused for all the batches)
+  private final FrameWriter writer = new FrameWriter();
+  // the encoder of the Base64 text
+  private final Base64Text base64 = new Base64Text();
+  // the interned sources
+  private final SourceTable sources = new SourceTable();
+  // the base time of the previous batch
+  private long previousBaseTime = 0;
+  // the number of samples of the current batch
+  private int count = 0;
+  // the time of the first sample of the current batch
+  private long startTime = 0;
+
+  /**
+   * Add the measured value of an event to the current batch.
+   * 
+   * @param event
+   *          the event
+   * @return true if the value was added, false if the event can't be sent in
+   *         a batch (it is not a measurement of a sensor, or its type has no
+   *         registered schema)
+   */
+  public boolean add(Event< ?> event) {
+    if (!(event instanceof MeasurementEvent)
+        || !(event.getSource() instanceof PhysicalAgent)) {
+      return false;
+    }
+    EventSchema< ?> schema = EventSchemas.get(event.getClass());
+    if (schema == null) {
+      return false;
+    }
+    MeasurementEvent measurement = (MeasurementEvent) event;
+    PhysicalAgent source = (PhysicalAgent) event.getSource();
+    Enum< ?> unit = measurement.getMeasuredUnit();
+    TimeSeriesEncoder first = this.series.get(source);
+    TimeSeriesEncoder series = first;
+    while (series != null
+        && (series.eventType != event.getClass() || series.unit != unit)) {
+      series = series.next;
+    }
+    if (series == null) {
+      series = new TimeSeriesEncoder(source, event.getClass(), unit);
+      series.next = first;
+      this.series.put(source, series);
+    }
+    if (this.count == 0) {
+      this.startTime = event.getOccurrenceTime();
+    }
+    series.add(event.getOccurrenceTime(), measurement.getMeasuredValue());
+    this.count++;
+    return true;
+  }
+
+  /**
+   * Get the number of samples of the current batch.
+   * 
+   * @return the number of samples
+   */
+  public int getCount() {
+    return this.count;
+  }
+
+  /**
+   * Get the time of the first sample of the current batch.
+   * 
+   * @return the time of the first sample (undefined if the batch is empty)
+   */
+  public long getStartTime() {
+    return this.startTime;
+  }
+
+  /**
+   * Encode the current batch and start a new one.
+   * 
+   * @return the frame writer, containing the batch (valid until the next
+   *         batch is encoded)
+   */
+  public FrameWriter encode() {
+    FrameWriter writer = this.writer;
+    writer.reset();
+    int seriesCount = 0;
+    long baseTime = Long.MAX_VALUE;
+    for (TimeSeriesEncoder first : this.series.values()) {
+      for (TimeSeriesEncoder series = first; series != null; series = series.next) {
+        if (series.getCount() > 0) {
+          seriesCount++;
+          baseTime = Math.min(baseTime, series.getFirstTime());
+        }
+      }
+    }
+    writer.writeVarLong(seriesCount);
+    if (seriesCount == 0) {
+      return writer;
+    }
+    writer.writeZigZagLong(baseTime - this.previousBaseTime);
+    this.previousBaseTime = baseTime;
+    Iterator< TimeSeriesEncoder> iterator = this.series.values().iterator();
+    while (iterator.hasNext()) {
+      boolean used = false;
+      for (TimeSeriesEncoder series = iterator.next(); series != null; series = series.next) {
+        if (series.getCount() > 0) {
+          used = true;
+          this.sources.write(series.source, writer);
+          writer.writeVarLong(EventSchemas.get(series.eventType).getTypeId());
+          writer.writeEnum(series.unit);
+          writer.writeVarLong(series.getCount());
+          writer.writeZigZagLong(series.getFirstTime() - baseTime);
+          series.writeTo(writer);
+        }
+      }
+      if (!used) {
+        // the sources which no longer send values are forgotten
+        iterator.remove();
+      }
+    }
+    this.count = 0;
+    return writer;
+  }
+
+  /**
+   * Encode the current batch, in Base64 text form, and start a new one.
+   * 
+   * @return the batch, as Base64 text
+   */
+  public String encodeToString() {
+    FrameWriter writer = this.encode();
+    return this.base64.encode(writer.getBuffer(), writer.getSize());
+  }
+
+  /**
+   * Forget the state of the connection (the current batch, the interned
+   * sources and the previous base time), e.g. when connecting again.
+   */
+  public void reset() {
+    this.series.clear();
+    this.sources.clear();
+    this.previousBaseTime = 0;
+    this.count = 0;
+  }
+}
@@ -0,0 +1,167 @@
+package robo.comm.codec;
+
+import robo.model.PhysicalAgent;
+
+/**
+ * Compress the samples of one time series (the measured values of one
+ * sensor), as done by the Gorilla time series database:
+ * 
+ * <pre>
+ * time   the delta of delta from the previous sample (the first delta is
+ *        relative to 0):  '0'                  = 0
+ *                         '10'   + 7 bits      = [-64, 63]
+ *                         '110'  + 9 bits      = [-256, 255]
+ *                         '1110' + 12 bits     = [-2048, 2047]
+ *                         '1111' + 64 bits     = any other value
+ * value  the first value as its 64 bits, then the XOR with the previous
+ *        value:               '0'              = the same value
+ *                             '10' + bits      = the meaningful bits fit
+ *                                                in the previous window
+ *        '11' + 5 bits (leading zeros) + 6 bits (meaningful bits count, 0
+ *        meaning 64) + bits  = a new window
+ * </pre>
+ * 
+ * For the values changing slowly and sampled at a regular rate, most of the
+ * samples take a few bits (instead of the 16 bytes of their raw values).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 01:12:37
+ * 
+ */
+final class TimeSeriesEncoder {
+  // the source of the series
+  final PhysicalAgent source;
+  // the event type of the series
+  final Class< ?> eventType;
+  // the unit of the values
+  final Enum< ?> unit;
+  // the next series of the same source (for other event types or units)
+  TimeSeriesEncoder next = null;
+  // the compressed samples
+  private final BitWriter bits = new BitWriter();
+  // the number of samples
+  private int count = 0;
+  // the time of the first sample
+  private long firstTime = 0;
+  // the time of the previous sample
+  private long previousTime = 0;
+  // the time delta of the previous sample
+  private long previousDelta = 0;
+  // the bits of the previous value
+  private long previousValue = 0;
+  // the leading zeros of the previous XOR window, -1 if there is none
+  private int previousLeading = -1;
+  // the trailing zeros of the previous XOR window
+  private int previousTrailing = 0;
+
+  TimeSeriesEncoder(PhysicalAgent source, Class< ?> eventType, Enum< ?> unit) {
+    this.source = source;
+    this.eventType = eventType;
+    this.unit = unit;
+  }
+
+  int getCount() {
+    return this.count;
+  }
+
+  long getFirstTime() {
+    return this.firstTime;
+  }
+
+  /**
+   * Add a sample.
+   * 
+   * @param time
+   *          the time of the sample (not before the previous sample)
+   * @param value
+   *          the value
+   */
+  void add(long time, double value) {
+    long valueBits = Double.doubleToRawLongBits(value);
+    if (this.count == 0) {
+      this.firstTime = time;
+      this.previousTime = time;
+      this.previousDelta = 0;
+      this.bits.writeBits(valueBits, 64);
+    } else {
+      long delta = time - this.previousTime;
+      this.writeTime(delta - this.previousDelta);
+      this.previousTime = time;
+      this.previousDelta = delta;
+      this.writeValue(valueBits ^ this.previousValue);
+    }
+    this.previousValue = valueBits;
+    this.count++;
+  }
+
+  /**
+   * Write the compressed samples (their byte length, then the bits) and
+   * start a new block of samples.
+   * 
+   * @param writer
+   *          the frame writer
+   */
+  void writeTo(FrameWriter writer) {
+    writer.writeVarLong(this.bits.getByteSize());
+    writer.writeBytes(this.bits.getBuffer(), this.bits.getByteSize());
+    this.bits.reset();
+    this.count = 0;
+    this.previousLeading = -1;
+  }
+
+  /**
+   * Helper method used to write a delta of delta.
+   * 
+   * @param deltaOfDelta
+   *          the delta of delta
+   */
+  private void writeTime(long deltaOfDelta) {
+    BitWriter bits = this.bits;
+    if (deltaOfDelta == 0) {
+      bits.writeBits(0, 1);
+    } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+      bits.writeBits(0x2, 2);
+      bits.writeBits(deltaOfDelta, 7);
+    } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+      bits.writeBits(0x6, 3);
+      bits.writeBits(deltaOfDelta, 9);
+    } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+      bits.writeBits(0xE, 4);
+      bits.writeBits(deltaOfDelta, 12);
+    } else {
+      bits.writeBits(0xF, 4);
+      bits.writeBits(deltaOfDelta, 64);
+    }
+  }
+
+  /**
+   * Helper method used to write the XOR of a value with the previous one.
+   * 
+   * @param xor
+   *          the XOR of the values bits
+   */
+  private void writeValue(long xor) {
+    BitWriter bits = this.bits;
+    if (xor == 0) {
+      bits.writeBits(0, 1);
+      return;
+    }
+    int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+    int trailing = Long.numberOfTrailingZeros(xor);
+    if (this.previousLeading >= 0 && leading >= this.previousLeading
+        && trailing >= this.previousTrailing) {
+      // the meaningful bits fit in the previous window
+      bits.writeBits(0x2, 2);
+      bits.writeBits(xor >>> this.previousTrailing, 64 - this.previousLeading
+          - this.previousTrailing);
+    } else {
+      int meaningful = 64 - leading - trailing;
+      bits.writeBits(0x3, 2);
+      bits.writeBits(leading, 5);
+      bits.writeBits(meaningful, 6);
+      bits.writeBits(xor >>> trailing, meaningful);
+      this.previousLeading = leading;
+      this.previousTrailing = trailing;
+    }
+  }
+}
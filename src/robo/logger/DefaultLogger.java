@@ -10,19 +10,42 @@ import java.util.Properties;
  * 
  */
 public class DefaultLogger extends Logger {
-  private static Logger logger = null;
-
+  private static volatile Logger logger = null;
+
+  /**
+   * Get the logger. The logger implementation is chosen only once, the first
+   * time this method is called (it is called for each entity and rule, so it
+   * must be cheap).
+   * 
+   * @return the logger
+   */
   public static Logger getLogger() {
+    Logger logger = DefaultLogger.logger;
+    if (logger == null) {
+      logger = DefaultLogger.createLogger();
+    }
+    return logger;
+  }
+
+  /**
+   * Helper method used to create the logger. The Android logger is loaded by
+   * name, since it is not part of this library.
+   * 
+   * @return the logger
+   */
+  private static synchronized Logger createLogger() {
+    if (DefaultLogger.logger != null) {
+      return DefaultLogger.logger;
+    }
     Properties p = System.getProperties();
     String runtime = p.getProperty("java.runtime.name");
-    String loggerImplementationClass = DefaultLogger.class.getName();
-    if (runtime.compareToIgnoreCase("Android Runtime") == 0) {
-      loggerImplementationClass = "robo.android.logger.DefaultLogger";
-    }
-    if (DefaultLogger.logger == null) {
+    if (runtime == null
+        || runtime.compareToIgnoreCase("Android Runtime") != 0) {
+      DefaultLogger.logger = new DefaultLogger();
+    } else {
       try {
-        DefaultLogger.logger = (Logger) Class
-            .forName(loggerImplementationClass).newInstance();
+        DefaultLogger.logger = (Logger) Class.forName(
+            "robo.android.logger.DefaultLogger").newInstance();
       } catch (InstantiationException e) {
         e.printStackTrace();
       } catch (IllegalAccessException e) {
@@ -0,0 +1,130 @@
+package robo.model;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import robo.logger.DefaultLogger;
+
+/**
+ * Generate compact 64-bit identifiers, made of the time (41 bits, the
+ * milliseconds since 2014-01-01), the node number (10 bits) and a sequence
+ * number (12 bits). No random numbers are used (so the generator never blocks
+ * waiting for entropy, as <code>UUID.randomUUID</code> may do on a headless
+ * board), and the identifiers are monotonic: each one is greater than all the
+ * identifiers previously generated by the same generator.
+ * 
+ * NOTE1: more than 4096 identifiers in the same millisecond use the time bits
+ * of the next milliseconds (the generator never waits), so the identifiers
+ * remain unique and monotonic, and the time is caught up as soon as the rate
+ * decreases.
+ * 
+ * NOTE2: the identifiers are unique for a node. The nodes (e.g. the boards
+ * connected to the same server system) have to use different node numbers,
+ * given to the constructor or by the <code>robo.node</code> system property.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 23:24:06
+ * 
+ */
+public class CompactIdGenerator extends IdGenerator {
+  // the name of the system property giving the node number
+  public static final String NODE_PROPERTY = "robo.node";
+  // the time from which the milliseconds are counted (2014-01-01T00:00:00Z)
+  public static final long EPOCH = 1388534400000L;
+  // the number of bits of the node number
+  public static final int NODE_BITS = 10;
+  // the number of bits of the sequence number
+  public static final int SEQUENCE_BITS = 12;
+  // the maximum node number
+  public static final int MAX_NODE = (1 << CompactIdGenerator.NODE_BITS) - 1;
+  // the position of the time bits
+  private static final int TIME_SHIFT = CompactIdGenerator.NODE_BITS
+      + CompactIdGenerator.SEQUENCE_BITS;
+  // the mask of the node bits
+  private static final long NODE_MASK = ((long) CompactIdGenerator.MAX_NODE) << CompactIdGenerator.SEQUENCE_BITS;
+  // the node number, already shifted to its position
+  private final long node;
+  // the last generated identifier
+  private final AtomicLong lastId = new AtomicLong(0);
+
+  /**
+   * Create a generator for the node given by the <code>robo.node</code> system
+   * property. If the property is not set, then a random node number is used
+   * (and a warning is logged), which is only safe for the applications using
+   * a single node.
+   */
+  public CompactIdGenerator() {
+    this(CompactIdGenerator.getConfiguredNode());
+  }
+
+  /**
+   * Create a generator for a given node.
+   * 
+   * @param node
+   *          the node number, from 0 to <code>MAX_NODE</code>
+   */
+  public CompactIdGenerator(int node) {
+    if (node < 0 || node > CompactIdGenerator.MAX_NODE) {
+      throw new IllegalArgumentException(
+          "The node number must be between 0 and " + CompactIdGenerator.MAX_NODE
+              + " when calling CompactIdGenerator(" + node + ")!");
+    }
+    this.node = ((long) node) << CompactIdGenerator.SEQUENCE_BITS;
+  }
+
+  /**
+   * Helper method used to get the node number given by the
+   * <code>robo.node</code> system property, or a random one if the property is
+   * not set.
+   * 
+   * @return the node number
+   */
+  private static int getConfiguredNode() {
+    String node = System.getProperty(CompactIdGenerator.NODE_PROPERTY);
+    if (node != null) {
+      try {
+        return Integer.parseInt(node.trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("The "
+            + CompactIdGenerator.NODE_PROPERTY
+            + " system property must be a node number (found \"" + node
+            + "\") when calling CompactIdGenerator()!");
+      }
+    }
+    int randomNode = new Random(System.nanoTime())
+        .nextInt(CompactIdGenerator.MAX_NODE + 1);
+    DefaultLogger.getLogger().warn(
+        CompactIdGenerator.class.getSimpleName(),
+        "The " + CompactIdGenerator.NODE_PROPERTY
+            + " system property is not set, so the random node number "
+            + randomNode + " is used. The identifiers may collide with the "
+            + "ones of other nodes.");
+    return randomNode;
+  }
+
+  public int getNode() {
+    return (int) (this.node >>> CompactIdGenerator.SEQUENCE_BITS);
+  }
+
+  @Override
+  public long nextId() {
+    long now = System.currentTimeMillis() - CompactIdGenerator.EPOCH;
+    long first = (now << CompactIdGenerator.TIME_SHIFT) | this.node;
+    while (true) {
+      long last = this.lastId.get();
+      long id = first;
+      if (id <= last) {
+        // same millisecond (or a borrowed one): the next sequence number
+        id = last + 1;
+        if ((id & CompactIdGenerator.NODE_MASK) != this.node) {
+          // the sequence overflowed: the first number of the next millisecond
+          long time = (last >>> CompactIdGenerator.TIME_SHIFT) + 1;
+          id = (time << CompactIdGenerator.TIME_SHIFT) | this.node;
+        }
+      }
+      if (this.lastId.compareAndSet(last, id)) {
+        return id;
+      }
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package robo.model;
+
+/**
+ * Define the modes used by an agent to decide when a new cycle (i.e.
+ * <code>onCycleStarts</code>, processing of the current events and
+ * <code>onCycleEnds</code>) has to be executed.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 10:12:31
+ * 
+ */
+public enum CycleMode {
+  // the agent is parked (does not use CPU) until either a new event arrives
+  // or the cycle period of the agent expires (if a cycle period was set).
+  EVENT_DRIVEN,
+  // the agent executes cycles continuously, with a pause of 1ms between two
+  // consecutive cycles, no matter if events arrived or not.
+  POLLING
+}
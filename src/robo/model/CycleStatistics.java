@@ -0,0 +1,204 @@
+package robo.model;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rolling statistics on the duration of the cycles of an agent. The minimum,
+ * maximum, average and percentiles are computed over the latest cycles (the
+ * window), while the numbers of cycles and of overruns are counted since the
+ * statistics were created or reset. All the durations are in nanoseconds.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 17:21:36
+ * 
+ */
+public class CycleStatistics {
+  // the default number of cycles considered by the rolling statistics
+  public static final int DEFAULT_WINDOW = 128;
+  // the durations of the latest cycles (used as a ring buffer)
+  private final long[] durations;
+  // the position where the next duration is stored
+  private int position = 0;
+  // the number of valid durations in the ring buffer
+  private int size = 0;
+  // the number of cycles since the statistics were created or reset
+  private long cyclesCount = 0;
+  // the number of overruns since the statistics were created or reset
+  private long overrunsCount = 0;
+  // the lock guarding the statistics (the cycles are recorded by the agent
+  // activity while the statistics can be read by any thread)
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Create cycle statistics using the default window.
+   */
+  public CycleStatistics() {
+    this(CycleStatistics.DEFAULT_WINDOW);
+  }
+
+  /**
+   * Create cycle statistics using a given window.
+   * 
+   * @param window
+   *          the number of latest cycles considered by the rolling statistics
+   */
+  public CycleStatistics(int window) {
+    if (window < 1) {
+      throw new IllegalArgumentException(
+          "The window must be greater than zero when calling new CycleStatistics(window)!");
+    }
+    this.durations = new long[window];
+  }
+
+  /**
+   * Record the duration of a cycle.
+   * 
+   * @param duration
+   *          the duration of the cycle
+   * @param overrun
+   *          true if the cycle exceeded the budget of the agent
+   */
+  void record(long duration, boolean overrun) {
+    this.lock.lock();
+    try {
+      this.durations[this.position] = duration;
+      this.position = (this.position + 1) % this.durations.length;
+      if (this.size < this.durations.length) {
+        this.size++;
+      }
+      this.cyclesCount++;
+      if (overrun) {
+        this.overrunsCount++;
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Reset the statistics.
+   */
+  public void reset() {
+    this.lock.lock();
+    try {
+      this.position = 0;
+      this.size = 0;
+      this.cyclesCount = 0;
+      this.overrunsCount = 0;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  public long getCyclesCount() {
+    this.lock.lock();
+    try {
+      return this.cyclesCount;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  public long getOverrunsCount() {
+    this.lock.lock();
+    try {
+      return this.overrunsCount;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Get the duration of the latest cycle.
+   * 
+   * @return the duration of the latest cycle, 0 if no cycle was recorded
+   */
+  public long getLastDuration() {
+    this.lock.lock();
+    try {
+      if (this.size == 0) {
+        return 0;
+      }
+      int last = this.position - 1;
+      return this.durations[last < 0 ? this.durations.length - 1 : last];
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Get the minimum duration of the cycles from the window.
+   * 
+   * @return the minimum duration, 0 if no cycle was recorded
+   */
+  public long getMinDuration() {
+    return this.getPercentile(0);
+  }
+
+  /**
+   * Get the maximum duration of the cycles from the window.
+   * 
+   * @return the maximum duration, 0 if no cycle was recorded
+   */
+  public long getMaxDuration() {
+    return this.getPercentile(100);
+  }
+
+  /**
+   * Get the average duration of the cycles from the window.
+   * 
+   * @return the average duration, 0 if no cycle was recorded
+   */
+  public double getAverageDuration() {
+    this.lock.lock();
+    try {
+      if (this.size == 0) {
+        return 0;
+      }
+      long total = 0;
+      for (int i = 0; i < this.size; i++) {
+        total += this.durations[i];
+      }
+      return (double) total / this.size;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Get a percentile of the durations of the cycles from the window (e.g. 50
+   * for the median, 99 for the duration exceeded by only 1% of the cycles).
+   * 
+   * @param percentile
+   *          the percentile, between 0 and 100
+   * @return the duration corresponding to the percentile, 0 if no cycle was
+   *         recorded
+   */
+  public long getPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException(
+          "The percentile must be between 0 and 100 when calling CycleStatistics.getPercentile(percentile)!");
+    }
+    long[] sorted = null;
+    this.lock.lock();
+    try {
+      if (this.size == 0) {
+        return 0;
+      }
+      sorted = Arrays.copyOf(this.durations, this.size);
+    } finally {
+      this.lock.unlock();
+    }
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+    return sorted[index < 0 ? 0 : index];
+  }
+
+  public String toString() {
+    return "{" + CycleStatistics.class.getSimpleName() + ": cycles = "
+        + this.getCyclesCount() + ", overruns = " + this.getOverrunsCount()
+        + ", average = " + this.getAverageDuration() + ", max = "
+        + this.getMaxDuration() + "}";
+  }
+}
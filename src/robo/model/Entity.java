@@ -1,10 +1,14 @@
 package robo.model;
 
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import robo.comm.codec.JsonName;
+import robo.comm.codec.JsonWriter;
+
 /**
  * The super class of any entity used by the system. Any specific entity class
  * must extend this!
@@ -14,16 +18,63 @@ import org.json.JSONObject;
  * 
  */
 public abstract class Entity {
-  private String id;
+  // the type names used for serialization, for each entity class
+  private static final ConcurrentHashMap< Class< ?>, String> typeNames = new ConcurrentHashMap< Class< ?>, String>();
+  // the names of the JSON fields
+  private static final JsonName TYPE = new JsonName("type");
+  private static final JsonName ID = new JsonName("id");
+  private static final JsonName NAME = new JsonName("name");
+  // the generator which issued the compact identifier (which also gives its
+  // string form, even if another generator is set in the meantime)
+  private final IdGenerator idGenerator;
+  // the compact identifier, given by the current IdGenerator
+  private final long numericId;
+  // the string form of the identifier, created when first required (or the
+  // UUID, for the entities with a globally unique identity)
+  private String id = null;
   protected String name;
 
   public Entity() {
-    this.id = UUID.randomUUID().toString();
+    this.idGenerator = IdGenerator.getIdGenerator();
+    this.numericId = this.idGenerator.nextId();
     this.name = "";
   }
 
+  /**
+   * Get the identifier of the entity. For most of the entities (e.g. the
+   * events) this is the string form of the compact identifier, created when
+   * first required by the generator which issued it.
+   * 
+   * @return the identifier
+   */
   public String getId() {
-    return this.id;
+    String id = this.id;
+    if (id == null) {
+      // the string is immutable, so computing it twice (by two threads) is
+      // harmless
+      id = this.idGenerator.toString(this.numericId);
+      this.id = id;
+    }
+    return id;
+  }
+
+  /**
+   * Get the compact identifier of the entity, which is unique for this node
+   * (even if the entity has a globally unique identifier).
+   * 
+   * @return the compact identifier
+   */
+  public long getNumericId() {
+    return this.numericId;
+  }
+
+  /**
+   * Use a UUID as identifier, for the entities whose identity must be
+   * globally unique (e.g. the systems and their components, which are known
+   * by the server systems). This has to be called by the constructor.
+   */
+  protected void useGloballyUniqueId() {
+    this.id = UUID.randomUUID().toString();
   }
 
   public String getName() {
@@ -35,12 +86,77 @@ public abstract class Entity {
   }
 
   public JSONObject toJson() throws JSONException {
+    return this.toJson(true);
+  }
+
+  /**
+   * Helper method used to serialize the entity, optionally without its
+   * identifier (so the string form of the identifier is not created for the
+   * entities serialized without it, e.g. the events).
+   * 
+   * @param withId
+   *          true if the identifier is serialized
+   * @return the JSON form of the entity
+   * @throws JSONException
+   */
+  protected JSONObject toJson(boolean withId) throws JSONException {
     JSONObject result = new JSONObject();
-    result.put("type", this.getClass().getSimpleName());
-    result.put("id", this.id);
+    result.put("type", Entity.getTypeName(this.getClass()));
+    if (withId) {
+      result.put("id", this.getId());
+    }
     if (this.name != null && this.name.length() > 0) {
       result.put("name", this.name);
     }
     return result;
   }
+
+  /**
+   * Write the fields of the entity into the current object of a JSON writer
+   * (the same fields as for <code>toJson</code>, but without creating any
+   * <code>JSONObject</code>). The subclasses which add fields to the JSON
+   * form of the entity must also override this method.
+   * 
+   * @param writer
+   *          the JSON writer
+   */
+  public void writeJsonFields(JsonWriter writer) {
+    this.writeJsonFields(writer, true);
+  }
+
+  /**
+   * Helper method used to write the fields of the entity, optionally without
+   * its identifier (see <code>toJson(withId)</code>).
+   * 
+   * @param writer
+   *          the JSON writer
+   * @param withId
+   *          true if the identifier is written
+   */
+  protected void writeJsonFields(JsonWriter writer, boolean withId) {
+    writer.name(Entity.TYPE).value(Entity.getTypeName(this.getClass()));
+    if (withId) {
+      writer.name(Entity.ID).value(this.getId());
+    }
+    if (this.name != null && this.name.length() > 0) {
+      writer.name(Entity.NAME).value(this.name);
+    }
+  }
+
+  /**
+   * Get the type name of an entity class, as used for serialization (i.e. the
+   * simple name of the class). The names are computed once for each class.
+   * 
+   * @param entityClass
+   *          the entity class
+   * @return the type name
+   */
+  public static String getTypeName(Class< ?> entityClass) {
+    String typeName = Entity.typeNames.get(entityClass);
+    if (typeName == null) {
+      typeName = entityClass.getSimpleName();
+      Entity.typeNames.put(entityClass, typeName);
+    }
+    return typeName;
+  }
 }
\ No newline at end of file
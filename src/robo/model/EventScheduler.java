@@ -0,0 +1,479 @@
+package robo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import robo.model.event.Event;
+import robo.model.event.EventMailbox;
+import robo.model.event.EventPriority;
+import robo.runtime.Clock;
+
+/**
+ * Decide the order in which the incoming events of an agent are processed.
+ * The events are extracted from the mailboxes of the agent and are processed
+ * in the order of their priorities, but:
+ * 
+ * - an event waiting longer than the aging period is promoted to the next
+ * higher priority, and so on for each aging period it waits, so the events
+ * with low priorities are not delayed without bound by a steady stream of
+ * events with high priorities;
+ * 
+ * - an event with a deadline is promoted to the highest priority when less
+ * than one aging period (or no time at all, if aging is not used) is left
+ * until its deadline;
+ * 
+ * - the time spent with the events of a priority level during one cycle can
+ * be limited by a time budget. The events left unprocessed when the budget is
+ * exhausted are kept (in order) for the next cycles, where they can also be
+ * promoted.
+ * 
+ * For a level with a time budget, only about as many events as the budget
+ * allowed to process in the previous cycles are extracted from the mailbox
+ * in each cycle. The backlog stays in the mailbox, where its capacity,
+ * overflow policy and conflation still apply, while the waiting events which
+ * have to be promoted are extracted (from any position of the mailboxes)
+ * before the new events of the higher levels.
+ * 
+ * Looking for the events to promote costs a pass over the pending events and
+ * over the waiting events of each lower-priority mailbox, so it is done only
+ * when aging is used or when some of these events have a deadline.
+ * 
+ * The scheduler also computes, for each event priority, the queueing delay of
+ * the processed events (i.e. the time between the occurrence of an event and
+ * the moment when its processing starts).
+ * 
+ * NOTE: the ages and the deadlines of the events are computed based on their
+ * occurrence time (in milliseconds, as given by the agents
+ * <code>Clock</code>). Events without a valid occurrence
+ * time are never promoted because of their age.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 16:48:09
+ * 
+ */
+class EventScheduler {
+  // the number of events extracted for a level with a time budget, until the
+  // number of events processed within the budget is known
+  private static final int INITIAL_BATCH_SIZE = 16;
+  // the maximum number of events extracted for a level with a time budget
+  private static final int MAX_BATCH_SIZE = 1 << 16;
+  // the mailboxes of the agent, indexed by the priority ordinal
+  private final EventMailbox[] mailboxes;
+  // the events extracted from the mailboxes which were not yet processed,
+  // indexed by the priority level at which they are processed
+  private final List< List< Event< ?>>> pendingEvents;
+  // the time (in milliseconds) after which a waiting event is promoted to the
+  // next higher priority (0 means that the events are not promoted)
+  private volatile long agingPeriod = 0;
+  // the maximum time (in nanoseconds) spent with the events of each priority
+  // level during one cycle (0 means no limit)
+  private final AtomicLongArray timeBudgets;
+  // the maximum number of events extracted during one cycle for each priority
+  // level with a time budget, based on the events processed within the budget
+  private final int[] batchSizes;
+  // the selector of the waiting events which have to be promoted
+  private final PromotionSelector promotionSelector;
+  // the waiting events extracted because they have to be promoted
+  private final List< Event< ?>> promotedEvents;
+  // the number of extracted events which have a deadline and were not yet
+  // processed (only used by the agent thread)
+  private int pendingDeadlineCount = 0;
+  // the number of processed events, for each event priority
+  private final AtomicLongArray processedCount;
+  // the sum of the queueing delays (in milliseconds), for each event priority
+  private final AtomicLongArray totalQueueingDelay;
+  // the maximum queueing delay (in milliseconds), for each event priority
+  private final AtomicLongArray maxQueueingDelay;
+  // the number of events processed after their deadline, for each priority
+  private final AtomicLongArray missedDeadlinesCount;
+  // flag showing that the pending events have to be discarded
+  private volatile boolean discardRequested = false;
+
+  /**
+   * Create a scheduler for the events of the given mailboxes.
+   * 
+   * @param mailboxes
+   *          the mailboxes of the agent, indexed by the priority ordinal
+   */
+  EventScheduler(EventMailbox[] mailboxes) {
+    int levels = mailboxes.length;
+    this.mailboxes = mailboxes;
+    this.pendingEvents = new ArrayList< List< Event< ?>>>(levels);
+    for (int i = 0; i < levels; i++) {
+      this.pendingEvents.add(new ArrayList< Event< ?>>());
+    }
+    this.timeBudgets = new AtomicLongArray(levels);
+    this.batchSizes = new int[levels];
+    for (int i = 0; i < levels; i++) {
+      this.batchSizes[i] = EventScheduler.INITIAL_BATCH_SIZE;
+    }
+    this.promotionSelector = new PromotionSelector();
+    this.promotedEvents = new ArrayList< Event< ?>>();
+    this.processedCount = new AtomicLongArray(levels);
+    this.totalQueueingDelay = new AtomicLongArray(levels);
+    this.maxQueueingDelay = new AtomicLongArray(levels);
+    this.missedDeadlinesCount = new AtomicLongArray(levels);
+  }
+
+  long getAgingPeriod() {
+    return this.agingPeriod;
+  }
+
+  void setAgingPeriod(long agingPeriod) {
+    if (agingPeriod < 0) {
+      throw new IllegalArgumentException(
+          "The aging period must be positive or zero when calling PhysicalAgent.setEventAgingPeriod(agingPeriod)!");
+    }
+    this.agingPeriod = agingPeriod;
+  }
+
+  /**
+   * Get the time budget of a priority level.
+   * 
+   * @param level
+   *          the priority level (i.e. the priority ordinal)
+   * @return the time budget, in nanoseconds (0 means no limit)
+   */
+  long getTimeBudget(int level) {
+    return this.timeBudgets.get(level);
+  }
+
+  void setTimeBudget(int level, long timeBudget) {
+    if (timeBudget < 0) {
+      throw new IllegalArgumentException(
+          "The time budget must be positive or zero when calling PhysicalAgent.setPriorityTimeBudget(priority, timeBudget)!");
+    }
+    this.timeBudgets.set(level, timeBudget);
+  }
+
+  /**
+   * Request to discard all the pending events. The events are discarded when
+   * the next cycle starts.
+   */
+  void discardPending() {
+    this.discardRequested = true;
+  }
+
+  /**
+   * Extract the new events from the mailboxes and promote the pending events,
+   * if their age or deadline requires it. This is called at the beginning of
+   * each cycle.
+   */
+  void collect() {
+    if (this.discardRequested) {
+      this.discardRequested = false;
+      for (int i = 0; i < this.pendingEvents.size(); i++) {
+        List< Event< ?>> events = this.pendingEvents.get(i);
+        for (int j = 0, n = events.size(); j < n; j++) {
+          events.get(j).release();
+        }
+        events.clear();
+      }
+      this.pendingDeadlineCount = 0;
+    }
+    long now = Clock.getClock().currentTimeMillis();
+    long agingPeriod = this.agingPeriod;
+    if (agingPeriod > 0 || this.pendingDeadlineCount > 0) {
+      this.promotePending(now, agingPeriod);
+    }
+    if (agingPeriod > 0 || this.hasWaitingDeadlines()) {
+      this.promoteWaiting(now, agingPeriod);
+    }
+    // the new events are extracted only if the time budgets allow to process
+    // them in this cycle, the other ones wait in the mailboxes
+    for (int level = 0; level < this.mailboxes.length; level++) {
+      int levelRoom = this.getRoom(level);
+      if (levelRoom > 0) {
+        List< Event< ?>> events = this.pendingEvents.get(level);
+        int start = events.size();
+        this.mailboxes[level].drainTo(events, levelRoom);
+        this.countDeadlines(events, start);
+      }
+    }
+  }
+
+  /**
+   * Helper method used to promote the extracted events, if their age or
+   * deadline requires it.
+   * 
+   * @param now
+   *          the current time, in milliseconds
+   * @param agingPeriod
+   *          the aging period, in milliseconds
+   */
+  private void promotePending(long now, long agingPeriod) {
+    // the events from the highest priority level can't be promoted
+    for (int level = 1; level < this.pendingEvents.size(); level++) {
+      List< Event< ?>> events = this.pendingEvents.get(level);
+      int kept = 0;
+      for (int i = 0, n = events.size(); i < n; i++) {
+        Event< ?> event = events.get(i);
+        int promotedLevel = this.getPromotedLevel(event, level, now,
+            agingPeriod);
+        if (promotedLevel < level) {
+          this.pendingEvents.get(promotedLevel).add(event);
+        } else {
+          events.set(kept++, event);
+        }
+      }
+      if (kept < events.size()) {
+        events.subList(kept, events.size()).clear();
+      }
+    }
+  }
+
+  /**
+   * Helper method used to extract the waiting events of the lower-priority
+   * mailboxes which have to be promoted, before the new events of the higher
+   * levels, but not more than the higher levels can take in this cycle.
+   * 
+   * @param now
+   *          the current time, in milliseconds
+   * @param agingPeriod
+   *          the aging period, in milliseconds
+   */
+  private void promoteWaiting(long now, long agingPeriod) {
+    long room = 0;
+    for (int level = 1; level < this.mailboxes.length; level++) {
+      room += this.getRoom(level - 1);
+      if (room <= 0 || this.mailboxes[level].isEmpty()) {
+        continue;
+      }
+      this.promotionSelector.init(level, now, agingPeriod);
+      this.mailboxes[level].drainSelected(this.promotionSelector,
+          this.promotedEvents, (int) Math.min(room, Integer.MAX_VALUE));
+      for (int i = 0, n = this.promotedEvents.size(); i < n; i++) {
+        Event< ?> event = this.promotedEvents.get(i);
+        this.pendingEvents.get(
+            this.getPromotedLevel(event, level, now, agingPeriod)).add(event);
+      }
+      this.countDeadlines(this.promotedEvents, 0);
+      room -= this.promotedEvents.size();
+      this.promotedEvents.clear();
+    }
+  }
+
+  /**
+   * Helper method used to check if the mailboxes whose events can be promoted
+   * (i.e. all except the highest priority one) contain events with a
+   * deadline.
+   * 
+   * @return true if such events exist, false otherwise
+   */
+  private boolean hasWaitingDeadlines() {
+    for (int level = 1; level < this.mailboxes.length; level++) {
+      if (this.mailboxes[level].getDeadlineCount() > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Helper method used to count the newly extracted events which have a
+   * deadline.
+   * 
+   * @param events
+   *          the list containing the extracted events
+   * @param start
+   *          the index of the first extracted event in the list
+   */
+  private void countDeadlines(List< Event< ?>> events, int start) {
+    for (int i = start, n = events.size(); i < n; i++) {
+      if (events.get(i).getDeadline() > 0) {
+        this.pendingDeadlineCount++;
+      }
+    }
+  }
+
+  /**
+   * Helper method used to compute how many more events can be extracted for
+   * a priority level during the current cycle.
+   * 
+   * @param level
+   *          the priority level
+   * @return the number of events which can be extracted
+   */
+  private int getRoom(int level) {
+    if (this.timeBudgets.get(level) == 0) {
+      return Integer.MAX_VALUE;
+    }
+    int room = this.batchSizes[level] - this.pendingEvents.get(level).size();
+    return room > 0 ? room : 0;
+  }
+
+  /**
+   * Helper method used to compute the priority level at which an event has to
+   * be processed, based on its age and deadline.
+   * 
+   * @param event
+   *          the event
+   * @param level
+   *          the current level of the event
+   * @param now
+   *          the current time, in milliseconds
+   * @param agingPeriod
+   *          the aging period, in milliseconds
+   * @return the level at which the event has to be processed
+   */
+  private int getPromotedLevel(Event< ?> event, int level, long now,
+      long agingPeriod) {
+    long deadline = event.getDeadline();
+    if (deadline > 0 && now >= deadline - agingPeriod) {
+      return 0;
+    }
+    long occurrenceTime = event.getOccurrenceTime();
+    if (agingPeriod > 0 && occurrenceTime > 0) {
+      long promotions = (now - occurrenceTime) / agingPeriod;
+      // the aging starts from the initial priority of the event
+      long agedLevel = event.getPriority().ordinal() - promotions;
+      if (agedLevel < level) {
+        return agedLevel > 0 ? (int) agedLevel : 0;
+      }
+    }
+    return level;
+  }
+
+  /**
+   * Get the pending events of a priority level, in the order in which they
+   * have to be processed. The processed events have to be removed by using
+   * <code>removeProcessed</code>.
+   * 
+   * @param level
+   *          the priority level (i.e. the priority ordinal)
+   * @return the pending events of the given level
+   */
+  List< Event< ?>> getPending(int level) {
+    return this.pendingEvents.get(level);
+  }
+
+  /**
+   * Remove the processed events (from the beginning of the list) of a priority
+   * level.
+   * 
+   * @param level
+   *          the priority level (i.e. the priority ordinal)
+   * @param count
+   *          the number of processed events
+   */
+  void removeProcessed(int level, int count) {
+    List< Event< ?>> events = this.pendingEvents.get(level);
+    if (this.timeBudgets.get(level) > 0) {
+      // the next cycles extract about as many events as the budget allowed
+      // to process in this cycle, or more if the budget was not exhausted
+      if (count < events.size()) {
+        this.batchSizes[level] = count > 0 ? count : 1;
+      } else if (count >= this.batchSizes[level]
+          && this.batchSizes[level] < EventScheduler.MAX_BATCH_SIZE) {
+        this.batchSizes[level] *= 2;
+      }
+    }
+    if (count >= events.size()) {
+      events.clear();
+    } else if (count > 0) {
+      events.subList(0, count).clear();
+    }
+  }
+
+  /**
+   * Check if there are pending events left for the next cycles, either
+   * extracted or still waiting in the mailboxes.
+   * 
+   * @return true if there are pending events, false otherwise
+   */
+  boolean hasPending() {
+    for (int i = 0; i < this.pendingEvents.size(); i++) {
+      if (!this.pendingEvents.get(i).isEmpty()
+          || !this.mailboxes[i].isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Update the statistics when the processing of an event starts.
+   * 
+   * @param event
+   *          the event
+   * @param now
+   *          the current time, in milliseconds
+   */
+  void onProcessing(Event< ?> event, long now) {
+    int priority = event.getPriority().ordinal();
+    this.processedCount.incrementAndGet(priority);
+    long deadline = event.getDeadline();
+    if (deadline > 0) {
+      this.pendingDeadlineCount--;
+      if (now > deadline) {
+        this.missedDeadlinesCount.incrementAndGet(priority);
+      }
+    }
+    long occurrenceTime = event.getOccurrenceTime();
+    if (occurrenceTime > 0 && now > occurrenceTime) {
+      long delay = now - occurrenceTime;
+      this.totalQueueingDelay.addAndGet(priority, delay);
+      if (delay > this.maxQueueingDelay.get(priority)) {
+        this.maxQueueingDelay.set(priority, delay);
+      }
+    }
+  }
+
+  long getProcessedCount(EventPriority priority) {
+    return this.processedCount.get(priority.ordinal());
+  }
+
+  long getMissedDeadlinesCount(EventPriority priority) {
+    return this.missedDeadlinesCount.get(priority.ordinal());
+  }
+
+  double getAverageQueueingDelay(EventPriority priority) {
+    long count = this.processedCount.get(priority.ordinal());
+    if (count == 0) {
+      return 0;
+    }
+    return (double) this.totalQueueingDelay.get(priority.ordinal()) / count;
+  }
+
+  long getMaxQueueingDelay(EventPriority priority) {
+    return this.maxQueueingDelay.get(priority.ordinal());
+  }
+
+  /**
+   * Reset the queueing statistics of all the priorities.
+   */
+  void resetStatistics() {
+    for (int i = 0; i < this.mailboxes.length; i++) {
+      this.processedCount.set(i, 0);
+      this.totalQueueingDelay.set(i, 0);
+      this.maxQueueingDelay.set(i, 0);
+      this.missedDeadlinesCount.set(i, 0);
+    }
+  }
+
+  /**
+   * Select the waiting events of a mailbox which have to be promoted to a
+   * higher priority level.
+   */
+  private final class PromotionSelector implements EventMailbox.Selector {
+    // the priority level of the mailbox
+    private int level;
+    // the current time, in milliseconds
+    private long now;
+    // the aging period, in milliseconds
+    private long agingPeriod;
+
+    private void init(int level, long now, long agingPeriod) {
+      this.level = level;
+      this.now = now;
+      this.agingPeriod = agingPeriod;
+    }
+
+    @Override
+    public boolean select(Event< ?> event) {
+      return EventScheduler.this.getPromotedLevel(event, this.level, this.now,
+          this.agingPeriod) < this.level;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package robo.model;
+
+/**
+ * The source of the identifiers of the entities. By default, compact 64-bit
+ * identifiers are generated (see <code>CompactIdGenerator</code>), which are
+ * unique for a node and cheap to create, so they can be used for each event.
+ * Another generator (e.g. one using identifiers given by a server system) can
+ * be set instead.
+ * 
+ * NOTE: the generator is shared by all the entities, so it has to be set
+ * before creating them. The entities whose identity must be globally unique
+ * (i.e. the systems and their components) use a UUID instead.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 23:24:06
+ * 
+ */
+public abstract class IdGenerator {
+  // the generator currently used by the entities
+  private static volatile IdGenerator idGenerator = new CompactIdGenerator();
+
+  /**
+   * Get the generator currently used by the entities.
+   * 
+   * @return the current generator
+   */
+  public static IdGenerator getIdGenerator() {
+    return IdGenerator.idGenerator;
+  }
+
+  /**
+   * Set the generator used by the entities.
+   * 
+   * @param idGenerator
+   *          the new generator (null means a new default generator)
+   */
+  public static void setIdGenerator(IdGenerator idGenerator) {
+    IdGenerator.idGenerator = idGenerator != null ? idGenerator
+        : new CompactIdGenerator();
+  }
+
+  /**
+   * Generate a new identifier. This method can be called by any thread.
+   * 
+   * @return the new identifier
+   */
+  public abstract long nextId();
+
+  /**
+   * Get the string form of an identifier (the hexadecimal number). This is
+   * only computed when the string form is required (e.g. for serialization).
+   * 
+   * @param id
+   *          the identifier
+   * @return the string form of the identifier
+   */
+  public String toString(long id) {
+    return Long.toHexString(id);
+  }
+}
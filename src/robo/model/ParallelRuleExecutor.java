@@ -0,0 +1,265 @@
+package robo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import robo.model.event.Event;
+
+/**
+ * Execute a group of non-conflicting rules, triggered by the same event, in
+ * parallel on a fork-join pool. The agent cycle waits until all the rules of
+ * the group are executed, then the resulting events are merged in the order
+ * of the rules (the same order as for a sequential execution), so the
+ * processing remains deterministic.
+ * 
+ * The tasks of a group (with the contexts and the result lists of its rules)
+ * are created the first time the group is executed and are kept in the
+ * compiled entry of the event type, whose groups never change, so the next
+ * executions allocate nothing. For the same reason, the agent thread executes
+ * the first rule of the group itself and waits for the other ones by parking
+ * (the join of a fork-join task by a thread outside the pool allocates a wait
+ * node whenever it blocks).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 21:07:33
+ * 
+ */
+public class ParallelRuleExecutor {
+  // the executor used by the agents which does not have their own executor
+  private static ParallelRuleExecutor defaultExecutor = null;
+  // the pool executing the rules
+  private final ForkJoinPool pool;
+
+  /**
+   * Get the default executor. The executor is created the first time this
+   * method is called, with one thread for each available processor. On a
+   * single processor, there is no default executor (the rules are always
+   * executed sequentially).
+   * 
+   * @return the default executor, or null if the rules have to be executed
+   *         sequentially
+   */
+  public static synchronized ParallelRuleExecutor getDefaultExecutor() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    if (ParallelRuleExecutor.defaultExecutor == null && processors > 1) {
+      ParallelRuleExecutor.defaultExecutor = new ParallelRuleExecutor(
+          processors);
+    }
+    return ParallelRuleExecutor.defaultExecutor;
+  }
+
+  /**
+   * Create an executor which uses a pool with a given number of threads.
+   * 
+   * @param parallelism
+   *          the number of threads of the pool
+   */
+  public ParallelRuleExecutor(int parallelism) {
+    this.pool = new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Execute a group of rules for the same event and collect their resulting
+   * events.
+   * 
+   * @param entry
+   *          the compiled entry of the event type, which keeps the tasks of
+   *          its groups
+   * @param group
+   *          the position of the group in the entry
+   * @param agent
+   *          the agent processing the event
+   * @param event
+   *          the triggering event
+   * @param resultingEvents
+   *          the list where the resulting events are added, in the order of
+   *          the rules
+   */
+  void execute(RuleIndex.Entry entry, int group, PhysicalAgent agent,
+      Event< ?> event, List< Event< ?>> resultingEvents) {
+    GroupTask task = entry.groupTasks[group];
+    if (task == null) {
+      int start = group > 0 ? entry.groupEnds[group - 1] : 0;
+      task = new GroupTask(entry.rules, start, entry.groupEnds[group], agent);
+      entry.groupTasks[group] = task;
+    }
+    task.execute(this.pool, event);
+    task.collect(resultingEvents);
+  }
+
+  /**
+   * Stop the threads of the pool.
+   */
+  public void shutdown() {
+    this.pool.shutdownNow();
+  }
+
+  /**
+   * The tasks of the rules of a group, reused for all the executions of the
+   * group (only by the agent owning the group).
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 21:07:33
+   * 
+   */
+  static class GroupTask {
+    // the tasks of the rules, in the order of the rules
+    private final RuleTask[] tasks;
+    // the number of rules executed by the pool which are not yet finished
+    private final AtomicInteger running = new AtomicInteger(0);
+    // the thread executing the group, which waits for the rules
+    private volatile Thread waiter = null;
+    // the first failure of a rule executed by the pool
+    private volatile Throwable failure = null;
+
+    private GroupTask(Rule< ?, ?>[] rules, int start, int end,
+        PhysicalAgent agent) {
+      this.tasks = new RuleTask[end - start];
+      for (int i = start; i < end; i++) {
+        this.tasks[i - start] = new RuleTask(this, rules[i], agent);
+      }
+    }
+
+    /**
+     * Helper method used to execute the rules of the group: the first one by
+     * the current thread, the other ones by the pool.
+     * 
+     * @param pool
+     *          the pool
+     * @param event
+     *          the triggering event
+     */
+    private void execute(ForkJoinPool pool, Event< ?> event) {
+      for (int i = 0; i < this.tasks.length; i++) {
+        RuleTask task = this.tasks[i];
+        task.reinitialize();
+        task.result.clear();
+        task.context.setEvent(event);
+      }
+      this.failure = null;
+      this.waiter = Thread.currentThread();
+      this.running.set(this.tasks.length - 1);
+      int submitted = 1;
+      try {
+        for (; submitted < this.tasks.length; submitted++) {
+          pool.execute(this.tasks[submitted]);
+        }
+        this.tasks[0].rule.invoke(this.tasks[0].context);
+      } finally {
+        // the submitted rules are waited for even if this thread failed, since
+        // their tasks are reused (the ones rejected by the pool never run)
+        this.running.addAndGet(submitted - this.tasks.length);
+        this.await(submitted);
+      }
+      Throwable failure = this.failure;
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      } else if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+    }
+
+    /**
+     * Helper method used to wait until the rules executed by the pool are
+     * finished.
+     * 
+     * @param submitted
+     *          the number of tasks submitted to the pool, plus one
+     */
+    private void await(int submitted) {
+      boolean interrupted = false;
+      while (this.running.get() > 0) {
+        LockSupport.park(this);
+        // an interrupt would make park return at once, so it is kept for
+        // later
+        interrupted |= Thread.interrupted();
+      }
+      // a task counts as finished right after its rule, so it is also waited
+      // until the pool marks it as done, before it can be reused
+      for (int i = 1; i < submitted; i++) {
+        while (!this.tasks[i].isDone()) {
+          Thread.yield();
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Helper method used to move the resulting events of the rules to a list,
+     * in the order of the rules.
+     * 
+     * @param resultingEvents
+     *          the list where the resulting events are added
+     */
+    private void collect(List< Event< ?>> resultingEvents) {
+      for (int i = 0; i < this.tasks.length; i++) {
+        List< Event< ?>> result = this.tasks[i].result;
+        for (int j = 0, n = result.size(); j < n; j++) {
+          resultingEvents.add(result.get(j));
+        }
+        result.clear();
+        // the triggering event is not kept alive until the next execution
+        this.tasks[i].context.setEvent(null);
+      }
+    }
+
+    /**
+     * Helper method used by the pool threads when a rule is finished.
+     * 
+     * @param failure
+     *          the failure of the rule, or null
+     */
+    private void onFinished(Throwable failure) {
+      if (failure != null && this.failure == null) {
+        this.failure = failure;
+      }
+      if (this.running.decrementAndGet() == 0) {
+        LockSupport.unpark(this.waiter);
+      }
+    }
+  }
+
+  /**
+   * The task executing one rule.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 21:07:33
+   * 
+   */
+  private static class RuleTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    // the group of the rule
+    private final GroupTask group;
+    // the rule
+    private final Rule< ?, ?> rule;
+    // the resulting events of the rule
+    private final List< Event< ?>> result = new ArrayList< Event< ?>>(2);
+    // the execution context of the rule (with its own resulting events)
+    private final RuleContext< PhysicalAgent, Event< ? extends PhysicalAgent>> context;
+
+    private RuleTask(GroupTask group, Rule< ?, ?> rule, PhysicalAgent agent) {
+      this.group = group;
+      this.rule = rule;
+      this.context = new RuleContext< PhysicalAgent, Event< ? extends PhysicalAgent>>(
+          agent, this.result);
+    }
+
+    @Override
+    protected void compute() {
+      Throwable failure = null;
+      try {
+        this.rule.invoke(this.context);
+      } catch (Throwable t) {
+        failure = t;
+      } finally {
+        this.group.onFinished(failure);
+      }
+    }
+  }
+}
@@ -1,42 +1,92 @@
 package robo.model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
 
 import robo.logger.DefaultLogger;
 import robo.logger.Logger;
+import robo.model.event.CycleOverrunEvent;
 import robo.model.event.Event;
+import robo.model.event.EventDispatcher;
 import robo.model.event.EventListener;
+import robo.model.event.EventMailbox;
 import robo.model.event.EventPriority;
 import robo.model.event.EventSource;
+import robo.model.event.OverflowPolicy;
 import robo.model.event.StartedEvent;
 import robo.model.event.StoppedEvent;
+import robo.runtime.AgentRuntime;
+import robo.runtime.Clock;
 
 public abstract class PhysicalAgent extends PhysicalObject implements
     EventSource, EventListener, Runnable {
+  // the event priorities, in the order in which they are processed
+  private static final EventPriority[] PRIORITIES = EventPriority.values();
   // flag to determine if the Agent is emulated or physically exists.
   // By default an agent is emulated, but this can be changes.
   private boolean emulated = true;
   // flag that determine if the agent is or not active (this can be used to
   // temporarily deactivate the agent for special cases, (i.e. simulating a
   // defection)
-  private boolean active = false;
-  // flag that controls when the thread for this agent has to stop
-  private boolean threadActive = false;
-  // the incoming events Map - the keys are the events priorities and values are
-  // the list of events with the same priority
-  private Map< EventPriority, List< Event< ?>>> currentEvents = null;
-  // event listeners organized by event types
-  private Map< Class< ? extends Event< ?>>, List< EventListener>> eventListenersByEventType = null;
-  // event listeners registered for ALL event types
-  private List< EventListener> eventListenersForAllEvents = null;
-  // the map of agent rules - the keys are the triggering event type and values
-  // are the list of rules with the same triggering event type
-  private Map< Class< ?>, List< Rule< ?, ?>>> rules = null;
+  private volatile boolean active = false;
+  // flag that controls when the activity (thread or scheduled cycles) of this
+  // agent has to stop
+  private volatile boolean threadActive = false;
+  // the mode used to decide when a new cycle is executed (by default the agent
+  // thread is parked until an event arrives or the cycle period expires)
+  private volatile CycleMode cycleMode = CycleMode.EVENT_DRIVEN;
+  // the maximum time (in milliseconds) between two cycles when the agent runs
+  // in EVENT_DRIVEN mode. A value of 0 (zero) means that cycles are only
+  // executed when events arrive or when an explicit wake up is requested.
+  private volatile long cyclePeriod = 0;
+  // flag that signals the agent thread that a new cycle has to be executed
+  private volatile boolean wakeUpRequested = false;
+  // the time (as given by the clock nanoTime) when the latest cycle started
+  private volatile long lastCycleStartTime = 0;
+  // the time (as given by the clock nanoTime) when the latest cycle ended
+  private volatile long lastCycleEndTime = 0;
+  // the maximum expected duration (in nanoseconds) of a cycle, 0 means that
+  // the cycles duration is not checked
+  private volatile long cycleBudget = 0;
+  // the rolling statistics on the cycles duration
+  private final CycleStatistics cycleStatistics = new CycleStatistics();
+  // the runtime used to execute the agent cycles (null means that the default
+  // runtime, or the one of the parent agent, is used)
+  private volatile AgentRuntime runtime = null;
+  // the activity created by the runtime for this agent (used to wake it up)
+  private volatile AgentRuntime.Activity activity = null;
+  // the incoming events mailboxes - one mailbox for each event priority,
+  // indexed by the priority ordinal
+  private final EventMailbox[] mailboxes;
+  // the event types (including their subtypes) for which only the latest
+  // pending event from each source is kept in the mailboxes
+  private final List< Class< ?>> conflatedEventTypes = new CopyOnWriteArrayList< Class< ?>>();
+  // cache showing if the events of a concrete type are conflated or not
+  private final ConcurrentHashMap< Class< ?>, Boolean> conflatedCache = new ConcurrentHashMap< Class< ?>, Boolean>();
+  // the scheduler deciding the order in which the incoming events are
+  // processed (priorities, aging, deadlines and time budgets)
+  private final EventScheduler scheduler;
+  // the events resulting from the rules executed during the current cycle
+  private final List< Event< ?>> resultingEvents = new ArrayList< Event< ?>>(
+      8);
+  // the context of the rules executed by the agent cycle (reused for all the
+  // events, with the resulting events as sink)
+  private final RuleContext< PhysicalAgent, Event< ? extends PhysicalAgent>> ruleContext = new RuleContext< PhysicalAgent, Event< ? extends PhysicalAgent>>(
+      this, this.resultingEvents);
+  // the event listeners, with the dispatch arrays resolved for each event type
+  private final EventDispatcher eventDispatcher = new EventDispatcher();
+  // the agent rules, compiled into a dispatch index for each concrete event
+  // type (a rule is also triggered by the subtypes of its triggering type)
+  private final RuleIndex ruleIndex = new RuleIndex();
+  // the executor of the rule groups which can run in parallel (null means
+  // that all the rules are executed sequentially, by the agent cycle)
+  private volatile ParallelRuleExecutor parallelRuleExecutor = null;
+  // the batches which received events during the current priority step
+  private final List< RuleIndex.Batch> pendingBatches = new ArrayList< RuleIndex.Batch>(
+      1);
   // debugger and logger
   protected Logger logger;
 
@@ -44,16 +94,16 @@ public abstract class PhysicalAgent extends PhysicalObject implements
    * Create a new agent instance and take care of current events initialization
    */
   public PhysicalAgent() {
-    this.rules = new HashMap< Class< ?>, List< Rule< ?, ?>>>(4);
-    this.currentEvents = new ConcurrentHashMap< EventPriority, List< Event< ?>>>(
-        EventPriority.values().length);
-    this.eventListenersByEventType = new HashMap< Class< ? extends Event< ?>>, List< EventListener>>(
-        1);
-    this.eventListenersForAllEvents = new ArrayList< EventListener>(1);
+    this.mailboxes = new EventMailbox[PhysicalAgent.PRIORITIES.length];
+    for (int i = 0; i < this.mailboxes.length; i++) {
+      this.mailboxes[i] = new EventMailbox();
+    }
+    this.scheduler = new EventScheduler(this.mailboxes);
     // by default the agent is active.
     this.setActive(true);
     // initialize the logger
     this.logger = DefaultLogger.getLogger();
+    this.parallelRuleExecutor = ParallelRuleExecutor.getDefaultExecutor();
   }
 
   public boolean isEmulated() {
@@ -64,6 +114,175 @@ public abstract class PhysicalAgent extends PhysicalObject implements
     return active;
   }
 
+  /**
+   * Get the current cycle mode of the agent.
+   * 
+   * @return the current cycle mode
+   */
+  public CycleMode getCycleMode() {
+    return this.cycleMode;
+  }
+
+  /**
+   * Set the cycle mode of the agent. In <code>CycleMode.EVENT_DRIVEN</code>
+   * mode (the default) the agent thread is parked until an event arrives, an
+   * explicit wake up is requested or the cycle period expires. In
+   * <code>CycleMode.POLLING</code> mode the agent executes a new cycle every
+   * millisecond, no matter if events arrived or not.
+   * 
+   * @param cycleMode
+   *          the new cycle mode (null values are ignored)
+   */
+  public void setCycleMode(CycleMode cycleMode) {
+    if (cycleMode != null) {
+      this.cycleMode = cycleMode;
+      this.wakeUp();
+    }
+  }
+
+  /**
+   * Get the current cycle period (in milliseconds).
+   * 
+   * @return the current cycle period, 0 if no cycle period is used
+   */
+  public long getCyclePeriod() {
+    return this.cyclePeriod;
+  }
+
+  /**
+   * Set the maximum time (in milliseconds) the agent waits for incoming events
+   * before executing a new cycle anyway. This is used only in
+   * <code>CycleMode.EVENT_DRIVEN</code> mode and allows agents that have to do
+   * periodical work in <code>onCycleStarts</code> or <code>onCycleEnds</code>
+   * (e.g. sensors reading data) to be woken up even if no events arrived.
+   * 
+   * @param cyclePeriod
+   *          the cycle period in milliseconds, 0 (zero) means that cycles are
+   *          only executed when events arrive
+   */
+  public void setCyclePeriod(long cyclePeriod) {
+    if (cyclePeriod < 0) {
+      throw new IllegalArgumentException(
+          "Negative values are not allowed when calling PhysicalAgent.setCyclePeriod(cyclePeriod)!");
+    }
+    this.cyclePeriod = cyclePeriod;
+    this.wakeUp();
+  }
+
+  /**
+   * Get the maximum expected duration of a cycle.
+   * 
+   * @return the cycle budget in milliseconds, 0 if no budget is used
+   */
+  public long getCycleBudget() {
+    return this.cycleBudget / 1000000L;
+  }
+
+  /**
+   * Set the maximum expected duration (in milliseconds) of a cycle (i.e.
+   * <code>onCycleStarts</code>, processing of the current events and
+   * <code>onCycleEnds</code>). When a cycle takes longer, an overrun is
+   * counted by the cycle statistics and a <code>CycleOverrunEvent</code> is
+   * triggered, so other agents can detect (and isolate) the agents which break
+   * the timing of a control loop.
+   * 
+   * @param cycleBudget
+   *          the cycle budget in milliseconds, 0 (zero) means that the cycles
+   *          duration is not checked
+   */
+  public void setCycleBudget(long cycleBudget) {
+    if (cycleBudget < 0) {
+      throw new IllegalArgumentException(
+          "Negative values are not allowed when calling PhysicalAgent.setCycleBudget(cycleBudget)!");
+    }
+    this.cycleBudget = cycleBudget * 1000000L;
+  }
+
+  /**
+   * Get the rolling statistics on the duration of the cycles of this agent.
+   * 
+   * @return the cycle statistics
+   */
+  public CycleStatistics getCycleStatistics() {
+    return this.cycleStatistics;
+  }
+
+  public ParallelRuleExecutor getParallelRuleExecutor() {
+    return this.parallelRuleExecutor;
+  }
+
+  /**
+   * Set the executor used for the rules triggered by the same event which can
+   * be executed in parallel (see <code>Rule.isIsolated</code>,
+   * <code>Rule.getReadSet</code> and <code>Rule.getWriteSet</code>). By
+   * default, the shared executor given by
+   * <code>ParallelRuleExecutor.getDefaultExecutor</code> is used.
+   * 
+   * @param parallelRuleExecutor
+   *          the executor, or null to execute all the rules sequentially
+   */
+  public void setParallelRuleExecutor(ParallelRuleExecutor parallelRuleExecutor) {
+    this.parallelRuleExecutor = parallelRuleExecutor;
+  }
+
+  /**
+   * Request the execution of a new cycle as soon as possible. This is
+   * automatically done when an event is received, but can be also used by
+   * subclasses which needs a cycle for other reasons (e.g. a hardware
+   * interrupt was received).
+   */
+  public void wakeUp() {
+    this.wakeUpRequested = true;
+    AgentRuntime.Activity activity = this.activity;
+    if (activity != null) {
+      activity.wakeUp();
+    }
+  }
+
+  /**
+   * Get the runtime used to execute the cycles of this agent. If no runtime
+   * was explicitly set, then the default runtime is returned.
+   * 
+   * @return the runtime of this agent
+   */
+  public AgentRuntime getRuntime() {
+    AgentRuntime runtime = this.runtime;
+    if (runtime == null) {
+      return AgentRuntime.getDefaultRuntime();
+    }
+    return runtime;
+  }
+
+  /**
+   * Set the runtime used to execute the cycles of this agent. The runtime must
+   * be set before the agent is started, and it is inherited by all the
+   * components started by this agent which does not have their own runtime.
+   * 
+   * @param runtime
+   *          the runtime to be used by this agent
+   */
+  public void setRuntime(AgentRuntime runtime) {
+    if (this.threadActive) {
+      throw new IllegalStateException(
+          "The runtime of an agent can't be changed while the agent is started!");
+    }
+    this.runtime = runtime;
+  }
+
+  /**
+   * Helper method used by the parent agents to make their components use the
+   * same runtime as themselves, unless a runtime was explicitly set for the
+   * component.
+   * 
+   * @param parent
+   *          the parent agent
+   */
+  void inheritRuntime(PhysicalAgent parent) {
+    if (this.runtime == null && !this.threadActive) {
+      this.runtime = parent.runtime;
+    }
+  }
+
   /**
    * Activate or deactivate an agent. If the agent is deactivated, then all the
    * incoming events for it will be ignored, but listeners can still be
@@ -79,102 +298,342 @@ public abstract class PhysicalAgent extends PhysicalObject implements
    *          deactivate it
    */
   public void setActive(boolean active) {
-    if (active) {
-      for (EventPriority priority : EventPriority.values()) {
-        this.currentEvents
-            .put(priority, new CopyOnWriteArrayList< Event< ?>>());
-      }
-    }
-    // if the agent becomes inactive, all the current events are no longer
-    // processed, so they are deleted
-    else {
-      this.currentEvents.clear();
+    // the current events are deleted: if the agent becomes inactive they are
+    // no longer processed, while a (re)activated agent starts without events
+    for (EventMailbox mailbox : this.mailboxes) {
+      mailbox.clear();
     }
+    this.scheduler.discardPending();
     this.active = active;
+    this.wakeUp();
+  }
+
+  /**
+   * Limit the number of pending events with a given priority. When the limit
+   * is reached, the overflow policy decides which events are dropped. By
+   * default, the number of pending events is not limited.
+   * 
+   * @param priority
+   *          the priority of the events to limit
+   * @param capacity
+   *          the maximum number of pending events with the given priority
+   * @param overflowPolicy
+   *          the policy used when an event arrives and the limit was reached
+   */
+  public void setMailboxCapacity(EventPriority priority, int capacity,
+      OverflowPolicy overflowPolicy) {
+    this.setMailboxCapacity(priority, capacity, overflowPolicy, 0);
+  }
+
+  /**
+   * Limit the number of pending events with a given priority. When the limit
+   * is reached, the overflow policy decides which events are dropped. By
+   * default, the number of pending events is not limited.
+   * 
+   * NOTE: with <code>OverflowPolicy.BLOCK</code>, the threads of the agents
+   * that send events to this agent wait (at most the given timeout) for this
+   * agent to process its pending events.
+   * 
+   * @param priority
+   *          the priority of the events to limit
+   * @param capacity
+   *          the maximum number of pending events with the given priority
+   * @param overflowPolicy
+   *          the policy used when an event arrives and the limit was reached
+   * @param blockTimeout
+   *          the maximum time (in milliseconds) to wait for room when
+   *          <code>OverflowPolicy.BLOCK</code> is used
+   */
+  public void setMailboxCapacity(EventPriority priority, int capacity,
+      OverflowPolicy overflowPolicy, long blockTimeout) {
+    this.mailboxes[priority.ordinal()].setCapacity(capacity, overflowPolicy,
+        blockTimeout);
+  }
+
+  /**
+   * Get the number of events with a given priority that were dropped because
+   * the limit of pending events was reached.
+   * 
+   * @param priority
+   *          the priority of the dropped events
+   * @return the number of dropped events with the given priority
+   */
+  public long getDroppedEventsCount(EventPriority priority) {
+    return this.mailboxes[priority.ordinal()].getDroppedCount();
+  }
+
+  /**
+   * Get the number of events (of any priority) that were dropped because the
+   * limit of pending events was reached.
+   * 
+   * @return the number of dropped events
+   */
+  public long getDroppedEventsCount() {
+    long count = 0;
+    for (EventMailbox mailbox : this.mailboxes) {
+      count += mailbox.getDroppedCount();
+    }
+    return count;
+  }
+
+  /**
+   * Get the aging period of the incoming events.
+   * 
+   * @return the aging period, in milliseconds (0 means no aging)
+   */
+  public long getEventAgingPeriod() {
+    return this.scheduler.getAgingPeriod();
+  }
+
+  /**
+   * Set the aging period of the incoming events: an event waiting longer than
+   * the aging period is processed as if its priority were one level higher,
+   * and so on for each aging period it waits. This way, the events with low
+   * priorities are not delayed without bound by a steady stream of events
+   * with high priorities. Also, the events with a deadline are processed with
+   * the highest priority when less than one aging period is left until their
+   * deadline. By default, the events are not aged.
+   * 
+   * @param agingPeriod
+   *          the aging period, in milliseconds (0 means no aging)
+   */
+  public void setEventAgingPeriod(long agingPeriod) {
+    this.scheduler.setAgingPeriod(agingPeriod);
+  }
+
+  /**
+   * Limit the time spent, during one cycle, with the events processed at a
+   * given priority level. The events that are left unprocessed when the time
+   * budget is exhausted are processed (in order) in the next cycles. By
+   * default, the time is not limited.
+   * 
+   * NOTE: the budget is checked after each processed event, so it can be
+   * exceeded by the processing time of one event, and at least one event is
+   * processed in each cycle.
+   * 
+   * @param priority
+   *          the priority level
+   * @param timeBudget
+   *          the maximum time, in milliseconds (0 means no limit)
+   */
+  public void setPriorityTimeBudget(EventPriority priority, long timeBudget) {
+    this.scheduler.setTimeBudget(priority.ordinal(), timeBudget * 1000000L);
+  }
+
+  /**
+   * Get the number of processed events with a given priority.
+   * 
+   * @param priority
+   *          the priority of the events
+   * @return the number of processed events
+   */
+  public long getProcessedEventsCount(EventPriority priority) {
+    return this.scheduler.getProcessedCount(priority);
+  }
+
+  /**
+   * Get the number of events with a given priority that were processed after
+   * their deadline.
+   * 
+   * @param priority
+   *          the priority of the events
+   * @return the number of events processed after their deadline
+   */
+  public long getMissedDeadlinesCount(EventPriority priority) {
+    return this.scheduler.getMissedDeadlinesCount(priority);
+  }
+
+  /**
+   * Get the average queueing delay of the processed events with a given
+   * priority, i.e. the average time between the occurrence of an event and the
+   * moment when its processing starts.
+   * 
+   * @param priority
+   *          the priority of the events
+   * @return the average queueing delay, in milliseconds
+   */
+  public double getAverageQueueingDelay(EventPriority priority) {
+    return this.scheduler.getAverageQueueingDelay(priority);
+  }
+
+  /**
+   * Get the maximum queueing delay of the processed events with a given
+   * priority.
+   * 
+   * @param priority
+   *          the priority of the events
+   * @return the maximum queueing delay, in milliseconds
+   */
+  public long getMaxQueueingDelay(EventPriority priority) {
+    return this.scheduler.getMaxQueueingDelay(priority);
+  }
+
+  /**
+   * Reset the queueing statistics (processed events, missed deadlines and
+   * queueing delays) of all the priorities.
+   */
+  public void resetQueueingStatistics() {
+    this.scheduler.resetStatistics();
+  }
+
+  /**
+   * Conflate the pending events of a given type (and of all its subtypes):
+   * when a new such event arrives while an event of the same type and from the
+   * same source is still pending, the pending event is replaced by the new one
+   * (keeping its position in the mailbox). This way, a busy agent processes
+   * only the latest value of a sensor instead of a backlog of stale values.
+   * 
+   * NOTE: only the events having a source are conflated.
+   * 
+   * @param eventType
+   *          the type of the events to conflate (e.g.
+   *          <code>SensorEvent.class</code>)
+   */
+  public void addConflatedEventType(Class< ? extends Event< ?>> eventType) {
+    if (eventType == null) {
+      throw new IllegalArgumentException(
+          "The event type must not be null when calling PhysicalAgent.addConflatedEventType(eventType)!");
+    }
+    if (!this.conflatedEventTypes.contains(eventType)) {
+      this.conflatedEventTypes.add(eventType);
+      this.conflatedCache.clear();
+    }
+  }
+
+  /**
+   * Get the number of pending events (of any priority) that were replaced by
+   * newer events because their type is conflated.
+   * 
+   * @return the number of replaced events
+   */
+  public long getConflatedEventsCount() {
+    long count = 0;
+    for (EventMailbox mailbox : this.mailboxes) {
+      count += mailbox.getConflatedCount();
+    }
+    return count;
+  }
+
+  /**
+   * Check if the events of a given type are conflated.
+   * 
+   * @param eventType
+   *          the type of the events
+   * @return true if the events of the given type are conflated, false
+   *         otherwise
+   */
+  private boolean isConflated(Class< ?> eventType) {
+    if (this.conflatedEventTypes.isEmpty()) {
+      return false;
+    }
+    Boolean conflated = this.conflatedCache.get(eventType);
+    if (conflated == null) {
+      conflated = Boolean.FALSE;
+      for (Class< ?> conflatedEventType : this.conflatedEventTypes) {
+        if (conflatedEventType.isAssignableFrom(eventType)) {
+          conflated = Boolean.TRUE;
+          break;
+        }
+      }
+      this.conflatedCache.put(eventType, conflated);
+    }
+    return conflated.booleanValue();
   }
 
   /**
    * Add a rule to the agent. The same rule instance can be shared between
-   * different agents (even if their type is different) if desired.
+   * different agents (even if their type is different) if desired, but only a
+   * <code>StatelessRule</code> can be safely executed by more agents at the
+   * same time (the other rules keep the agent and the triggering event in
+   * their fields).
+   * 
+   * A rule is triggered by the events of its triggering type and by the
+   * events of all its subtypes (e.g. a rule triggered by
+   * <code>SensorEvent</code> is executed for all the sensor events). The
+   * rules triggered by the same event are executed in the order they were
+   * added.
+   * 
+   * NOTE: batch rules (see <code>Rule.isBatchRule</code>) are executed once
+   * for each priority level of a cycle, after the other rules, with all the
+   * events of their triggering type extracted for that priority level.
    * 
    * @param rule
    *          the rule instance to be used by the agent
    */
   public void addRule(
       Rule< ? extends PhysicalAgent, ? extends Event< ? extends PhysicalAgent>> rule) {
-    List< Rule< ? extends PhysicalAgent, ? extends Event< ? extends PhysicalAgent>>> rulesForEventType = null;
     if (rule == null) {
       return;
     }
     rule.setAgent(this);
-    rulesForEventType = this.rules.get(rule.getTriggeringEventType());
-    if (rulesForEventType != null) {
-      rulesForEventType.add(rule);
-    } else {
-      rulesForEventType = new ArrayList< Rule< ? extends PhysicalAgent, ? extends Event< ? extends PhysicalAgent>>>();
-      rulesForEventType.add(rule);
-      this.rules.put(rule.getTriggeringEventType(), rulesForEventType);
-    }
+    this.ruleIndex.add(rule);
   }
 
   @Override
-  public synchronized void on(Event< ?> event) {
+  public void on(Event< ?> event) {
     if (event == null) {
       return;
     } else if (this.active && this.threadActive) {
-      this.currentEvents.get(event.getPriority()).add(event);
+      // no lock is needed: any number of threads can add events to the
+      // mailboxes without waiting for each other or for the agent thread
+      EventMailbox mailbox = this.mailboxes[event.getPriority().ordinal()];
+      // a pooled event is not recycled until its processing ends
+      event.retain();
+      if (this.isConflated(event.getClass())) {
+        mailbox.offerConflated(event);
+      } else {
+        mailbox.offer(event);
+      }
+      this.wakeUp();
     }
   }
 
   @Override
   @SuppressWarnings("unchecked")
-  public synchronized < T> void trigger(Event< T> event) {
+  public < T> void trigger(Event< T> event) {
     if (event == null) {
       return;
     } else if (this.active) {
+      // no lock is needed: the listeners only add the event to their
+      // mailboxes, so the propagation never waits for their processing
       if (event.getSource() == null) {
         event.setSource((T) this);
       }
-      List< EventListener> listeners = this.eventListenersByEventType.get(event
-          .getClass());
-      if (listeners != null) {
-        for (EventListener listener : listeners) {
-          listener.on(event);
-        }
-      }
-      if (this.eventListenersForAllEvents != null) {
-        for (EventListener listener : this.eventListenersForAllEvents) {
-          listener.on(event);
-        }
-      }
+      this.eventDispatcher.dispatch(event);
     }
   }
 
   @Override
   public boolean addListener(EventListener eventListener) {
-    if (eventListener == null) {
-      return false;
-    }
-    this.eventListenersForAllEvents.add(eventListener);
-    return true;
+    return this.eventDispatcher.addListener(eventListener);
   }
 
+  /**
+   * Register a listener for an event type. The listener receives the events
+   * of the given type and of all its subtypes.
+   * 
+   * @param eventType
+   *          the event type
+   * @param eventListener
+   *          the listener
+   * @return true if the listener was registered, false otherwise
+   */
   @Override
   public boolean addListenerForEventType(Class< ? extends Event< ?>> eventType,
       EventListener eventListener) {
-    if (eventType == null || eventListener == null) {
-      return false;
-    }
-    List< EventListener> listeners = this.eventListenersByEventType
-        .get(eventType);
-    if (listeners == null) {
-      listeners = new ArrayList< EventListener>(1);
-      listeners.add(eventListener);
-      this.eventListenersByEventType.put(eventType, listeners);
-    } else {
-      listeners.add(eventListener);
-    }
-    return true;
+    return this.eventDispatcher.addListenerForEventType(eventType,
+        eventListener);
+  }
+
+  /**
+   * Remove all the registrations of a listener.
+   * 
+   * @param eventListener
+   *          the listener
+   * @return true if the listener was registered, false otherwise
+   */
+  public boolean removeListener(EventListener eventListener) {
+    return this.eventDispatcher.removeListener(eventListener);
   }
 
   /**
@@ -192,6 +651,29 @@ public abstract class PhysicalAgent extends PhysicalObject implements
    */
   @Override
   public void run() {
+    if (!this.runStartUp()) {
+      return;
+    }
+    try {
+      while (this.threadActive) {
+        this.waitForCycle();
+        this.runCycle();
+      }
+    } catch (Exception e) {
+      this.onFatalError(e);
+      return;
+    }
+    this.runShutDown();
+  }
+
+  /**
+   * Initialize the agent, its rules and notify the listeners that the agent
+   * was started. This method should NOT be directly used, it is called by the
+   * agent runtime once, before executing the first cycle of this agent.
+   * 
+   * @return true if the agent was successfully started, false otherwise
+   */
+  public boolean runStartUp() {
     try {
       this.initialize();
       this.initializeRules();
@@ -200,27 +682,141 @@ public abstract class PhysicalAgent extends PhysicalObject implements
       this.logger.debug("[" + this.getClass().getSimpleName() + "] Started: "
           + this.getId() + ",  " + this.getClass().getSimpleName() + "( '"
           + this.getName() + "')");
-      while (this.threadActive) {
-        if (this.active) {
-          // freeze this thread for 1ms so other threads can also perform their
-          // tasks (Thread.yield may be used, but seems unreliable...).
-          Thread.sleep(1);
-          this.onCycleStarts();
-          processCurrentEvents();
-          this.onCycleEnds();
-        }
-      }
+      return true;
+    } catch (Exception e) {
+      this.onFatalError(e);
+      return false;
+    }
+  }
+
+  /**
+   * Execute one cycle of this agent: <code>onCycleStarts</code>, processing of
+   * the current events and <code>onCycleEnds</code>. This method should NOT be
+   * directly used, it is called by the agent runtime which guarantees that
+   * cycles of the same agent are never executed concurrently.
+   * 
+   * @throws Exception
+   *           the fatal errors which must terminate the agent activity
+   */
+  public void runCycle() throws Exception {
+    // the events arrived after this point are processed by the next cycle
+    this.wakeUpRequested = false;
+    if (this.active) {
+      this.lastCycleStartTime = Clock.getClock().nanoTime();
+      this.onCycleStarts();
+      processCurrentEvents();
+      this.onCycleEnds();
+      this.lastCycleEndTime = Clock.getClock().nanoTime();
+      this.checkCycleDuration(this.lastCycleEndTime - this.lastCycleStartTime);
+    } else {
+      this.lastCycleEndTime = Clock.getClock().nanoTime();
+    }
+  }
+
+  /**
+   * Helper method used to record the duration of a cycle and to report it if
+   * the cycle budget was exceeded.
+   * 
+   * @param cycleDuration
+   *          the duration of the cycle, in nanoseconds
+   */
+  private void checkCycleDuration(long cycleDuration) {
+    long cycleBudget = this.cycleBudget;
+    boolean overrun = cycleBudget > 0 && cycleDuration > cycleBudget;
+    this.cycleStatistics.record(cycleDuration, overrun);
+    if (overrun) {
+      this.logger.warn(this.getClass().getSimpleName(), "Cycle overrun for: "
+          + this.getClass().getSimpleName() + "( name = '" + this.getName()
+          + "', id='" + this.getId() + "'), duration = "
+          + (cycleDuration / 1000) + "us, budget = " + (cycleBudget / 1000)
+          + "us");
+      this.trigger(new CycleOverrunEvent(this, cycleDuration, cycleBudget));
+    }
+  }
+
+  /**
+   * Notify the listeners that the agent was stopped. This method should NOT be
+   * directly used, it is called by the agent runtime once, after the last
+   * cycle of this agent.
+   */
+  public void runShutDown() {
+    try {
       this.onStopped();
       this.trigger(new StoppedEvent(this));
       this.logger.debug("[" + this.getClass().getSimpleName() + "] Ended: "
           + this.getId() + ",  " + this.getClass().getSimpleName() + "( '"
           + this.getName() + "')");
     } catch (Exception e) {
-      this.logger.fatal("[" + this.getClass().getSimpleName() + "] Ended: "
-          + this.getId() + ",  " + this.getClass().getSimpleName() + "( '"
-          + this.getName() + "') because of the following fatal error: ");
-      this.logger.fatal(e);
-      e.printStackTrace();
+      this.onFatalError(e);
+    }
+  }
+
+  /**
+   * Log a fatal error which terminated the activity of this agent. This method
+   * should NOT be directly used, it is called by the agent runtime.
+   * 
+   * @param e
+   *          the exception which terminated the agent activity
+   */
+  public void onFatalError(Exception e) {
+    this.logger.fatal("[" + this.getClass().getSimpleName() + "] Ended: "
+        + this.getId() + ",  " + this.getClass().getSimpleName() + "( '"
+        + this.getName() + "') because of the following fatal error: ");
+    this.logger.fatal(e);
+    e.printStackTrace();
+  }
+
+  /**
+   * Check if the activity of this agent was started and no stop request was
+   * made since then.
+   * 
+   * @return true if the agent activity is running, false otherwise
+   */
+  public boolean isRunning() {
+    return this.threadActive;
+  }
+
+  /**
+   * Compute the time (in nanoseconds) which has to pass until the next cycle of
+   * this agent must be executed. This is used by the agent runtime to decide
+   * when to schedule the next cycle.
+   * 
+   * @return 0 if a cycle has to be executed right away, a positive value for
+   *         the time to wait before executing the next cycle, or -1 if the
+   *         agent has to wait until it is explicitly woken up (e.g. by an
+   *         incoming event)
+   */
+  public long getCycleDelay() {
+    if (this.wakeUpRequested) {
+      return 0;
+    } else if (!this.active) {
+      return -1;
+    } else if (this.cycleMode == CycleMode.POLLING) {
+      // wait for 1ms between cycles so other threads can also perform their
+      // tasks (Thread.yield may be used, but seems unreliable...).
+      return Math.max(0, this.lastCycleEndTime + 1000000L
+          - Clock.getClock().nanoTime());
+    }
+    long period = this.cyclePeriod;
+    if (period > 0) {
+      return Math.max(0, this.lastCycleStartTime + period * 1000000L
+          - Clock.getClock().nanoTime());
+    }
+    return -1;
+  }
+
+  /**
+   * Helper method used when the agent runs on its own thread to park that
+   * thread until the next cycle has to be executed or the agent is stopped.
+   */
+  private void waitForCycle() {
+    long delay = 0;
+    while (this.threadActive && (delay = this.getCycleDelay()) != 0) {
+      if (delay > 0) {
+        LockSupport.parkNanos(this, delay);
+      } else {
+        LockSupport.park(this);
+      }
     }
   }
 
@@ -231,15 +827,14 @@ public abstract class PhysicalAgent extends PhysicalObject implements
    * data (e.g. components, subcomponents, etc).
    */
   private void initializeRules() {
-    for (Class< ?> key : this.rules.keySet()) {
-      for (Rule< ?, ?> rule : this.rules.get(key)) {
-        try {
-          rule.initialize();
-        } catch (Exception e) {
-          this.logger.error(e);
-        }
+    for (Rule< ?, ?> rule : this.ruleIndex.getRules()) {
+      try {
+        rule.initialize();
+      } catch (Exception e) {
+        this.logger.error(e);
       }
     }
+    this.ruleIndex.compile();
   }
 
   /**
@@ -271,7 +866,9 @@ public abstract class PhysicalAgent extends PhysicalObject implements
   /**
    * Start the activity of this agent.
    * 
-   * NOTE: this will start the thread on which this agent runs.
+   * NOTE: this will hand the agent to its runtime, which either starts the
+   * thread on which this agent runs or schedules the agent cycles on a shared
+   * pool of threads, depending on the runtime implementation.
    */
   public void start() {
     this.logger.debug("[" + this.getClass().getSimpleName()
@@ -279,12 +876,14 @@ public abstract class PhysicalAgent extends PhysicalObject implements
         + "( name = '" + this.getName() + "', id='" + this.getId() + "')");
     if (!this.threadActive) {
       this.threadActive = true;
-      (new Thread(this)).start();
+      AgentRuntime.Activity activity = this.getRuntime().createActivity(this);
+      this.activity = activity;
+      activity.start();
     }
   }
 
   /**
-   * Stop the activity (thread) of this agent. The method will only stop the
+   * Stop the activity (thread or scheduled cycles) of this agent. The method will only stop the
    * agent after the processing of the current "step" ends - that is, all the
    * events from the current events queue are processed then the agent thread
    * (activity) is terminated.
@@ -296,49 +895,108 @@ public abstract class PhysicalAgent extends PhysicalObject implements
         + "] Stop request for: " + this.getClass().getSimpleName()
         + "( name = '" + this.getName() + "', id='" + this.getId() + "')");
     this.threadActive = false;
+    this.wakeUp();
   }
 
   /**
    * Helper method used to process the current incoming events queue, execute
    * the rule and then propagate the possible resulting events to the listeners.
+   * 
+   * NOTE: no lock is needed, the runtime never executes two cycles of the same
+   * agent concurrently, while the producers only use the (lock-free)
+   * mailboxes, so they never wait for the processing of this agent.
+   * 
+   * NOTE: in the steady state, the processing allocates nothing for each
+   * event: the lists, the rule context and the tasks of the rules executed in
+   * parallel are reused, and the rules can emit their resulting events to the
+   * context instead of returning lists.
    */
-  @SuppressWarnings({ "unchecked", "rawtypes" })
-  private synchronized void processCurrentEvents() {
-    List< Event< ?>> currentEventsByPriority = null;
-    List< Rule< ?, ?>> rulesForEventType = null;
-    List< Event< ?>> resultingEvents = new ArrayList< Event< ?>>(8);
+  private void processCurrentEvents() {
+    RuleIndex.Entry entry = null;
+    RuleIndex.Batch batch = null;
+    // extract the new events and promote the old ones, if needed
+    this.scheduler.collect();
     // loop through the current events in order of the priorities
-    for (EventPriority priority : EventPriority.values()) {
-      // get the list of events for the current step priority
-      currentEventsByPriority = this.currentEvents.get(priority);
+    for (int level = 0; level < PhysicalAgent.PRIORITIES.length; level++) {
+      List< Event< ?>> events = this.scheduler.getPending(level);
+      if (events.isEmpty()) {
+        continue;
+      }
+      long timeBudget = this.scheduler.getTimeBudget(level);
+      long stepStartTime = timeBudget > 0 ? Clock.getClock().nanoTime() : 0;
+      long now = Clock.getClock().currentTimeMillis();
+      int processed = 0;
       // loop through the list of events of current priority level
-      List< Event< ?>> eventsToRemove = new ArrayList< Event< ?>>();
-      for (Event< ?> currentEvent : currentEventsByPriority) {
-        eventsToRemove.add(currentEvent);
-        // loop through the rules that are triggered by the same type as
-        // of the current extracted event type
-        rulesForEventType = this.rules.get(currentEvent.getClass());
-        if (rulesForEventType == null) {
-          continue;
+      for (int n = events.size(); processed < n;) {
+        Event< ?> currentEvent = events.get(processed++);
+        this.scheduler.onProcessing(currentEvent, now);
+        entry = this.ruleIndex.get(currentEvent.getClass());
+        // the events triggering batch rules are collected and processed at
+        // the end of the current priority step
+        for (int i = 0; i < entry.batches.length; i++) {
+          batch = entry.batches[i];
+          if (batch.events.isEmpty()) {
+            this.pendingBatches.add(batch);
+          }
+          batch.events.add(currentEvent);
         }
-        for (Rule rule : rulesForEventType) {
-          rule.setTriggeringEvent(currentEvent);
-          List< Event< ?>> ruleResultingEvents = rule.execute();      
-          if (ruleResultingEvents != null) {
-            resultingEvents.addAll(ruleResultingEvents);
+        // loop through the rules that are triggered by the type (or by a
+        // supertype) of the current extracted event
+        if (entry.rules.length > 0) {
+          ParallelRuleExecutor parallelRuleExecutor = this.parallelRuleExecutor;
+          for (int group = 0, start = 0; start < entry.rules.length; group++) {
+            int end = entry.groupEnds[group];
+            if (end - start > 1 && parallelRuleExecutor != null) {
+              // the non-conflicting rules of the group are executed in
+              // parallel, and their events are merged in the rules order
+              parallelRuleExecutor.execute(entry, group, this, currentEvent,
+                  this.resultingEvents);
+            } else {
+              this.ruleContext.setEvent(currentEvent);
+              for (int i = start; i < end; i++) {
+                entry.rules[i].invoke(this.ruleContext);
+              }
+            }
+            start = end;
           }
+          // allow other processes to get the control (according to Java
+          // specification, this may have no effect in some cases result!)
+          Thread.yield();
+        }
+        // the remaining events are kept for the next cycles if the time
+        // budget of the current priority level is exhausted
+        if (timeBudget > 0
+            && Clock.getClock().nanoTime() - stepStartTime >= timeBudget) {
+          break;
+        }
+      }
+      // execute the batch rules, once for each batch of events
+      for (int i = 0, n = this.pendingBatches.size(); i < n; i++) {
+        batch = this.pendingBatches.get(i);
+        this.ruleContext.setEvent(batch.events.get(batch.events.size() - 1));
+        for (Rule< ?, ?> rule : batch.rules) {
+          rule.invokeBatch(this.ruleContext, batch.eventsView);
         }
-        // remove processed events
-        currentEventsByPriority.removeAll(eventsToRemove);
-        // allow other processes to get the control (according to Java
-        // specification, this may have no effect in some cases result!)
-        Thread.yield();
+        batch.events.clear();
       }
-      // propagate the resulting events to the listeners
-      for (Event< ?> resultingEvent : resultingEvents) {
+      this.pendingBatches.clear();
+      // propagate the resulting events to the listeners (the listeners retain
+      // the pooled events they keep, so the rules references are released)
+      for (int i = 0, n = this.resultingEvents.size(); i < n; i++) {
+        Event< ?> resultingEvent = this.resultingEvents.get(i);
         this.trigger(resultingEvent);
+        resultingEvent.release();
       }
-      resultingEvents.clear();
+      this.resultingEvents.clear();
+      // the processing of the events ends, so the pooled ones can be recycled
+      for (int i = 0; i < processed; i++) {
+        events.get(i).release();
+      }
+      this.scheduler.removeProcessed(level, processed);
+    }
+    // a new cycle is needed for the events left by the exhausted time budgets
+    if (this.scheduler.hasPending()) {
+      this.wakeUp();
     }
   }
 
@@ -368,4 +1026,5 @@ public abstract class PhysicalAgent extends PhysicalObject implements
    */
   public void onCycleEnds() {
   }
+
 }
\ No newline at end of file
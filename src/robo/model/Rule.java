@@ -1,11 +1,12 @@
 package robo.model;
 
-import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
 import java.util.List;
 
 import robo.logger.DefaultLogger;
 import robo.logger.Logger;
 import robo.model.event.Event;
+import robo.model.event.EventSink;
 
 /**
  * Represents an agent rule. The generic type T refers to the agent type that
@@ -22,6 +23,12 @@ public abstract class Rule< AgentRefType extends PhysicalAgent, TriggeringEventT
   protected TriggeringEventType triggeringEvent;
   // the context reference of the agent that has this rule
   protected AgentRefType agent;
+  // the sink of the resulting events (only set while the rule is executed by
+  // an agent)
+  private EventSink eventSink = null;
+  // the type of the events triggering this rule (resolved when first needed,
+  // if not given when the rule is created)
+  private Class< ?> triggeringEventType = null;
   // debugger and logger
   protected Logger logger;
 
@@ -32,6 +39,24 @@ public abstract class Rule< AgentRefType extends PhysicalAgent, TriggeringEventT
     this.logger = DefaultLogger.getLogger();
   }
 
+  /**
+   * Create a rule instance for which the triggering event type is explicitly
+   * given, instead of being resolved from the generic type of the rule class
+   * (useful e.g. when the rule class is a raw or generic class).
+   * 
+   * @param triggeringEventType
+   *          the type of the events triggering this rule
+   */
+  public Rule(Class< ?> triggeringEventType) {
+    this();
+    if (triggeringEventType == null
+        || !Event.class.isAssignableFrom(triggeringEventType)) {
+      throw new IllegalArgumentException(
+          "The triggering event type must be an Event subclass when calling new Rule(triggeringEventType)!");
+    }
+    this.triggeringEventType = triggeringEventType;
+  }
+
   /**
    * Create a rule instance.
    * 
@@ -126,37 +151,222 @@ public abstract class Rule< AgentRefType extends PhysicalAgent, TriggeringEventT
    * <code>executeThenActions</code>, <code>executeElseActions</code> as an
    * alternative to rule execution model.
    * 
+   * NOTE: when both the do-actions and the then/else actions return events
+   * and the rule is executed by an agent, the events of the do-actions are
+   * emitted by this method and only the other ones are returned.
+   * 
    * @return the list of possible resulting events as consequence of executing
    *         the rule (might be NULL if no event was created by this rule)
    */
   protected List< Event< ?>> execute() {
-    List< Event< ?>> result = null;
-    result = this.executeDoActions();
+    List< Event< ?>> result = this.executeDoActions();
+    List< Event< ?>> branchResult = null;
     if (this.checkCondition()) {
-      if (result == null) {
-        result = this.executeThenActions();
-      } else {
-        result.addAll(this.executeThenActions());
-      }
+      branchResult = this.executeThenActions();
     } else {
-      if (result == null) {
-        result = this.executeElseActions();
+      branchResult = this.executeElseActions();
+    }
+    if (result == null) {
+      return branchResult;
+    } else if (branchResult == null) {
+      return result;
+    } else if (this.eventSink != null) {
+      // when executed by an agent, the events of the do-actions are emitted
+      // (in the same order as the merged list) and no list is allocated
+      this.emitAll(this.eventSink, result);
+      return branchResult;
+    }
+    // the returned lists may be read-only, so they are not changed
+    List< Event< ?>> merged = new ArrayList< Event< ?>>(result.size()
+        + branchResult.size());
+    merged.addAll(result);
+    merged.addAll(branchResult);
+    return merged;
+  }
+
+  /**
+   * Emit a resulting event from the rule actions. This is an alternative to
+   * returning lists of resulting events, which allocates nothing: the event is
+   * added to the sink supplied by the agent executing the rule. The emitted
+   * events are triggered in the order they were emitted, before the events
+   * returned by the rule.
+   * 
+   * @param event
+   *          the resulting event (ignored if null)
+   */
+  protected void emit(Event< ?> event) {
+    if (this.eventSink == null) {
+      throw new IllegalStateException(
+          "Events can only be emitted during the rule execution when calling Rule.emit(event)!");
+    }
+    this.eventSink.emit(event);
+  }
+
+  /**
+   * Execute the rule for an event processed by an agent and collect its
+   * resulting events (emitted or returned) in the context. This is the entry
+   * point used by the agents.
+   * 
+   * @param context
+   *          the execution context, with the triggering event
+   */
+  @SuppressWarnings("unchecked")
+  void invoke(RuleContext< ?, ?> context) {
+    this.setTriggeringEvent((TriggeringEventType) context.getEvent());
+    this.eventSink = context;
+    try {
+      this.emitAll(context, this.execute());
+    } finally {
+      this.eventSink = null;
+    }
+  }
+
+  /**
+   * Execute the batch rule for a batch of events processed by an agent and
+   * collect its resulting events in the context (whose event is the latest
+   * event of the batch). This is the entry point used by the agents.
+   * 
+   * @param context
+   *          the execution context
+   * @param triggeringEvents
+   *          the read-only list of events which triggers the rule
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  void invokeBatch(RuleContext< ?, ?> context, List< Event< ?>> triggeringEvents) {
+    this.setTriggeringEvent((TriggeringEventType) context.getEvent());
+    this.eventSink = context;
+    try {
+      this.emitAll(context, this.executeBatch((List) triggeringEvents));
+    } finally {
+      this.eventSink = null;
+    }
+  }
+
+  /**
+   * Helper method used to emit the events returned by the rule.
+   * 
+   * @param sink
+   *          the sink
+   * @param events
+   *          the returned events (can be null)
+   */
+  private void emitAll(EventSink sink, List< Event< ?>> events) {
+    if (events != null) {
+      for (int i = 0, n = events.size(); i < n; i++) {
+        sink.emit(events.get(i));
+      }
+    }
+  }
+
+  /**
+   * Check if this rule is a batch rule, i.e. it is executed once for each
+   * cycle of the agent, with all the pending events (of the same priority) of
+   * its triggering type, instead of once for each such event. Batch rules are
+   * useful for high-rate events (e.g. sensor readings) when an aggregate or a
+   * single decision is needed for each cycle. The method has to be overridden
+   * by the batch rules, by default it returns false.
+   * 
+   * @return true if this is a batch rule, false otherwise
+   */
+  protected boolean isBatchRule() {
+    return false;
+  }
+
+  /**
+   * Execute the rule for a batch of events of its triggering type, in the
+   * order they arrived. This method is only called for batch rules (see
+   * <code>isBatchRule</code>) and has to be overridden by them. By default,
+   * the rule is executed once for each event of the batch. When this method is
+   * called, the triggering event of the rule is the latest event of the batch.
+   * 
+   * NOTE: the batch is a read-only view which is reused by the agent, so it
+   * must not be stored (copy it if needed after the method returns).
+   * 
+   * @param triggeringEvents
+   *          the read-only list of events which triggers the rule
+   * 
+   * @return the list of possible resulting events as consequence of executing
+   *         the rule (might be NULL if no event was created by this rule)
+   */
+  protected List< Event< ?>> executeBatch(
+      List< TriggeringEventType> triggeringEvents) {
+    List< Event< ?>> result = null;
+    for (int i = 0, n = triggeringEvents.size(); i < n; i++) {
+      this.triggeringEvent = triggeringEvents.get(i);
+      List< Event< ?>> eventResult = this.execute();
+      if (eventResult == null) {
+        continue;
+      } else if (result == null) {
+        result = new ArrayList< Event< ?>>(eventResult);
       } else {
-        result.addAll(this.executeElseActions());
+        result.addAll(eventResult);
       }
     }
     return result;
   }
 
   /**
-   * Return the Class (type) of the event which can trigger this rule.
+   * Check if this rule is side-effect isolated, i.e. its execution only reads
+   * the triggering event (and immutable data) and only produces resulting
+   * events, without changing the agent, its components or other shared
+   * state. The isolated rules triggered by the same event can be executed in
+   * parallel with each other and with the non-conflicting rules (see
+   * <code>getReadSet</code> and <code>getWriteSet</code>). By default it
+   * returns false.
+   * 
+   * @return true if the rule is side-effect isolated, false otherwise
+   */
+  protected boolean isIsolated() {
+    return false;
+  }
+
+  /**
+   * Get the objects (e.g. the agent components) whose state is read by this
+   * rule. Together with <code>getWriteSet</code>, this allows to execute in
+   * parallel the rules triggered by the same event which do not write
+   * anything that the others read or write. The objects are compared by
+   * identity. By default it returns null, meaning that the read objects are
+   * unknown.
+   * 
+   * NOTE: the read and write sets are requested when the rules are compiled
+   * (i.e. when the rule is added or before the agent starts, after
+   * <code>initialize</code>), so they must not change afterwards.
+   * 
+   * @return the read objects, or null if they are unknown
+   */
+  protected Object[] getReadSet() {
+    return null;
+  }
+
+  /**
+   * Get the objects (e.g. the agent components) whose state is changed by
+   * this rule (see <code>getReadSet</code>). By default it returns null,
+   * meaning that the changed objects are unknown.
+   * 
+   * @return the changed objects, or null if they are unknown
+   */
+  protected Object[] getWriteSet() {
+    return null;
+  }
+
+  /**
+   * Return the Class (type) of the event which can trigger this rule. For a
+   * generic event type (e.g. <code>SensorEvent&lt;?&gt;</code>) the raw class
+   * is returned.
+   * 
+   * NOTE: unless given when the rule is created, the type is resolved from
+   * the generic superclasses of the rule class only once for each rule class,
+   * then it is cached.
    * 
    * @return Class (type) of the event which can trigger this rule.
    */
   @SuppressWarnings("unchecked")
   public Class< TriggeringEventType> getTriggeringEventType() {
-    return (Class< TriggeringEventType>) ((ParameterizedType) this.getClass()
-        .getGenericSuperclass()).getActualTypeArguments()[1];
+    if (this.triggeringEventType == null) {
+      this.triggeringEventType = RuleMetadata.getTriggeringEventType(this
+          .getClass());
+    }
+    return (Class< TriggeringEventType>) this.triggeringEventType;
   }
 
   /**
@@ -0,0 +1,61 @@
+package robo.model;
+
+import java.util.List;
+
+import robo.model.event.Event;
+import robo.model.event.EventSink;
+
+/**
+ * The context of one execution of a rule: the triggering event, the agent
+ * processing it and the sink of the resulting events. The context is given
+ * to each execution of a stateless rule, so the rule itself keeps no state,
+ * and it is the sink used by the <code>emit</code> method of the other
+ * rules.
+ * 
+ * NOTE: the context is read-only for the rules, but it is owned and reused by
+ * the agent (so the processing of the events allocates nothing). Therefore,
+ * it is only valid during the execution it was given to, and it must not be
+ * stored by the rule.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 21:58:40
+ * 
+ * @param <AgentRefType>
+ *          the type of the agent processing the event
+ * @param <TriggeringEventType>
+ *          the type of the triggering event
+ */
+public final class RuleContext< AgentRefType extends PhysicalAgent, TriggeringEventType extends Event< ? extends PhysicalAgent>>
+    implements EventSink {
+  // the agent processing the event
+  private final AgentRefType agent;
+  // the triggering event (set by the agent before each execution)
+  private TriggeringEventType event = null;
+  // the list where the resulting events are added
+  private final List< Event< ?>> resultingEvents;
+
+  RuleContext(AgentRefType agent, List< Event< ?>> resultingEvents) {
+    this.agent = agent;
+    this.resultingEvents = resultingEvents;
+  }
+
+  public AgentRefType getAgent() {
+    return this.agent;
+  }
+
+  public TriggeringEventType getEvent() {
+    return this.event;
+  }
+
+  @SuppressWarnings("unchecked")
+  void setEvent(Event< ?> event) {
+    this.event = (TriggeringEventType) event;
+  }
+
+  @Override
+  public void emit(Event< ?> event) {
+    if (event != null) {
+      this.resultingEvents.add(event);
+    }
+  }
+}
@@ -0,0 +1,412 @@
+package robo.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import robo.model.event.Event;
+
+/**
+ * The dispatch index of the rules of an agent. A rule is triggered by the
+ * events of its triggering type and of all its subtypes (e.g. a rule
+ * triggered by <code>SensorEvent</code> is also executed for the
+ * <code>DistanceSensorEvent</code> events).
+ * 
+ * The rule set is compiled into one entry for each concrete event type, with
+ * the matching rules (in the order they were added) and the matching batches
+ * of batch rules, so processing an event needs no type check and no
+ * reflection. The entries of the triggering types are compiled by
+ * <code>compile</code> (before the agent starts), the ones of other event
+ * types the first time such an event is processed. Adding a rule updates only
+ * the entries of the event types matched by the new rule. Consecutive events
+ * of the same type (the common case for sensor readings) reuse the last entry
+ * without any lookup.
+ * 
+ * Each entry also splits its rules in groups of consecutive rules which can
+ * be executed in parallel, because they are side-effect isolated or do not
+ * write anything that the other rules of the group read or write (see
+ * <code>Rule.isIsolated</code>, <code>Rule.getReadSet</code> and
+ * <code>Rule.getWriteSet</code>).
+ * 
+ * NOTE: the lookup is only used by the agent cycle, while the rules can be
+ * added by any thread: the entries are kept in an immutable table which is
+ * replaced when a rule is added.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 20:14:37
+ * 
+ */
+class RuleIndex {
+  // the rules of the agent, in the order they were added
+  private final List< Rule< ?, ?>> rules = new ArrayList< Rule< ?, ?>>();
+  // the triggering types of the rules (same order as the rules)
+  private final List< Class< ?>> triggeringEventTypes = new ArrayList< Class< ?>>();
+  // the batches of batch rules, one for each triggering type
+  private final List< Batch> batches = new ArrayList< Batch>(1);
+  // the compiled entries (replaced as a whole when a rule is added)
+  private volatile Map< Class< ?>, Entry> entries = new HashMap< Class< ?>, Entry>();
+  // the lock used by the threads adding rules or compiling entries
+  private final ReentrantLock lock = new ReentrantLock();
+  // the entries map used for the last lookup (only used by the agent cycle)
+  private Map< Class< ?>, Entry> lastEntries = null;
+  // the event type of the last lookup (only used by the agent cycle)
+  private Class< ?> lastEventType = null;
+  // the entry of the last lookup (only used by the agent cycle)
+  private Entry lastEntry = null;
+
+  /**
+   * Add a rule to the index. The entries already compiled for the event types
+   * matched by the rule are updated.
+   * 
+   * @param rule
+   *          the rule
+   */
+  void add(Rule< ?, ?> rule) {
+    Class< ?> triggeringEventType = rule.getTriggeringEventType();
+    this.lock.lock();
+    try {
+      this.rules.add(rule);
+      this.triggeringEventTypes.add(triggeringEventType);
+      Batch newBatch = null;
+      if (rule.isBatchRule()) {
+        Batch batch = this.getBatch(triggeringEventType);
+        if (batch != null) {
+          batch.add(rule);
+        } else {
+          newBatch = new Batch(triggeringEventType, rule);
+          this.batches.add(newBatch);
+        }
+      }
+      Map< Class< ?>, Entry> entries = new HashMap< Class< ?>, Entry>(
+          this.entries);
+      for (Map.Entry< Class< ?>, Entry> entry : entries.entrySet()) {
+        if (triggeringEventType.isAssignableFrom(entry.getKey())) {
+          entry.setValue(rule.isBatchRule() ? entry.getValue().with(newBatch)
+              : entry.getValue().with(rule));
+        }
+      }
+      this.entries = entries;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Get all the rules, in the order they were added.
+   * 
+   * @return the rules
+   */
+  List< Rule< ?, ?>> getRules() {
+    this.lock.lock();
+    try {
+      return new ArrayList< Rule< ?, ?>>(this.rules);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Compile the entries of the triggering types of all the rules. The entries
+   * of the other event types are compiled when they are first used. The
+   * entries compiled before are compiled again, since the rules may declare
+   * their read and write sets in their <code>initialize</code> method.
+   */
+  void compile() {
+    this.lock.lock();
+    try {
+      Map< Class< ?>, Entry> entries = new HashMap< Class< ?>, Entry>();
+      for (Class< ?> eventType : this.entries.keySet()) {
+        entries.put(eventType, this.resolve(eventType));
+      }
+      for (Class< ?> eventType : this.triggeringEventTypes) {
+        if (!entries.containsKey(eventType)) {
+          entries.put(eventType, this.resolve(eventType));
+        }
+      }
+      this.entries = entries;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Get the entry of a concrete event type (only used by the agent cycle).
+   * 
+   * @param eventType
+   *          the concrete event type
+   * @return the rules and the batches matching the event type
+   */
+  Entry get(Class< ?> eventType) {
+    Map< Class< ?>, Entry> entries = this.entries;
+    if (eventType == this.lastEventType && entries == this.lastEntries) {
+      return this.lastEntry;
+    }
+    Entry entry = entries.get(eventType);
+    if (entry == null) {
+      this.lock.lock();
+      try {
+        entries = new HashMap< Class< ?>, Entry>(this.entries);
+        entry = this.resolve(eventType);
+        entries.put(eventType, entry);
+        this.entries = entries;
+      } finally {
+        this.lock.unlock();
+      }
+    }
+    this.lastEntries = entries;
+    this.lastEventType = eventType;
+    this.lastEntry = entry;
+    return entry;
+  }
+
+  /**
+   * Helper method used to compute the entry of a concrete event type (only
+   * used while the lock is held).
+   * 
+   * @param eventType
+   *          the concrete event type
+   * @return the entry of the event type
+   */
+  private Entry resolve(Class< ?> eventType) {
+    List< Rule< ?, ?>> matchingRules = new ArrayList< Rule< ?, ?>>();
+    for (int i = 0; i < this.rules.size(); i++) {
+      Rule< ?, ?> rule = this.rules.get(i);
+      if (!rule.isBatchRule()
+          && this.triggeringEventTypes.get(i).isAssignableFrom(eventType)) {
+        matchingRules.add(rule);
+      }
+    }
+    List< Batch> matchingBatches = new ArrayList< Batch>(1);
+    for (Batch batch : this.batches) {
+      if (batch.eventType.isAssignableFrom(eventType)) {
+        matchingBatches.add(batch);
+      }
+    }
+    if (matchingRules.isEmpty() && matchingBatches.isEmpty()) {
+      return Entry.EMPTY;
+    }
+    return new Entry(matchingRules.toArray(new Rule< ?, ?>[matchingRules
+        .size()]), matchingBatches.toArray(new Batch[matchingBatches.size()]));
+  }
+
+  /**
+   * Helper method used to find the batch of a triggering type (only used
+   * while the lock is held).
+   * 
+   * @param eventType
+   *          the triggering type
+   * @return the batch, or null if no batch rule has this triggering type
+   */
+  private Batch getBatch(Class< ?> eventType) {
+    for (Batch batch : this.batches) {
+      if (batch.eventType == eventType) {
+        return batch;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The compiled rules and batches for a concrete event type.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 20:14:37
+   * 
+   */
+  static class Entry {
+    // the entry of the event types without rules
+    private static final Entry EMPTY = new Entry(new Rule< ?, ?>[0],
+        new Batch[0]);
+    // the rules triggered by the event type, in the order they were added
+    final Rule< ?, ?>[] rules;
+    // the end (exclusive) of each group of rules which can be executed in
+    // parallel (each group starts where the previous one ends)
+    final int[] groupEnds;
+    // the reusable tasks of the groups executed in parallel, created by the
+    // ParallelRuleExecutor when a group is first executed (only used by the
+    // agent cycle)
+    final ParallelRuleExecutor.GroupTask[] groupTasks;
+    // the batches collecting the events of this type
+    final Batch[] batches;
+
+    private Entry(Rule< ?, ?>[] rules, Batch[] batches) {
+      this.rules = rules;
+      this.groupEnds = Entry.getGroupEnds(rules);
+      this.groupTasks = new ParallelRuleExecutor.GroupTask[this.groupEnds
+          .length];
+      this.batches = batches;
+    }
+
+    /**
+     * Helper method used to split the rules in groups of consecutive rules
+     * which do not conflict with each other.
+     * 
+     * @param rules
+     *          the rules
+     * @return the end (exclusive) of each group
+     */
+    private static int[] getGroupEnds(Rule< ?, ?>[] rules) {
+      List< Integer> groupEnds = new ArrayList< Integer>();
+      int start = 0;
+      while (start < rules.length) {
+        int end = start + 1;
+        if (Entry.isParallel(rules[start])) {
+          while (end < rules.length && Entry.isParallel(rules[end])
+              && !Entry.conflicts(rules, start, end)) {
+            end++;
+          }
+        }
+        groupEnds.add(end);
+        start = end;
+      }
+      int[] result = new int[groupEnds.size()];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = groupEnds.get(i);
+      }
+      return result;
+    }
+
+    /**
+     * Helper method used to check if a rule can be executed in parallel with
+     * other rules, i.e. it is isolated or its read and write sets are known.
+     * 
+     * @param rule
+     *          the rule
+     * @return true if the rule can be executed in parallel, false otherwise
+     */
+    private static boolean isParallel(Rule< ?, ?> rule) {
+      return rule.isIsolated()
+          || (rule.getReadSet() != null && rule.getWriteSet() != null);
+    }
+
+    /**
+     * Helper method used to check if a rule conflicts with any rule of a
+     * group, i.e. one of them writes an object which the other one reads or
+     * writes.
+     * 
+     * @param rules
+     *          the rules
+     * @param start
+     *          the start of the group
+     * @param candidate
+     *          the position of the rule (right after the group)
+     * @return true if the rule conflicts with the group, false otherwise
+     */
+    private static boolean conflicts(Rule< ?, ?>[] rules, int start,
+        int candidate) {
+      Rule< ?, ?> rule = rules[candidate];
+      if (rule.isIsolated()) {
+        return false;
+      }
+      for (int i = start; i < candidate; i++) {
+        Rule< ?, ?> other = rules[i];
+        if (other.isIsolated()) {
+          continue;
+        }
+        if (Entry.intersects(rule.getWriteSet(), other.getReadSet())
+            || Entry.intersects(rule.getWriteSet(), other.getWriteSet())
+            || Entry.intersects(rule.getReadSet(), other.getWriteSet())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Helper method used to check if two sets of objects have a common
+     * object (compared by identity).
+     * 
+     * @param first
+     *          the first set
+     * @param second
+     *          the second set
+     * @return true if there is a common object, false otherwise
+     */
+    private static boolean intersects(Object[] first, Object[] second) {
+      for (Object a : first) {
+        for (Object b : second) {
+          if (a == b) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Helper method used to create a copy of this entry, with one more rule.
+     * 
+     * @param rule
+     *          the added rule
+     * @return the new entry
+     */
+    private Entry with(Rule< ?, ?> rule) {
+      Rule< ?, ?>[] newRules = new Rule< ?, ?>[this.rules.length + 1];
+      System.arraycopy(this.rules, 0, newRules, 0, this.rules.length);
+      newRules[this.rules.length] = rule;
+      return new Entry(newRules, this.batches);
+    }
+
+    /**
+     * Helper method used to create a copy of this entry, with one more batch
+     * (if a new batch was created).
+     * 
+     * @param batch
+     *          the new batch, or null if the batch already exists
+     * @return the new entry
+     */
+    private Entry with(Batch batch) {
+      if (batch == null) {
+        return this;
+      }
+      Batch[] newBatches = new Batch[this.batches.length + 1];
+      System.arraycopy(this.batches, 0, newBatches, 0, this.batches.length);
+      newBatches[this.batches.length] = batch;
+      return new Entry(this.rules, newBatches);
+    }
+  }
+
+  /**
+   * The batch rules having the same triggering event type, together with the
+   * events collected for them during the current priority step.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 16:02:44
+   * 
+   */
+  static class Batch {
+    // the triggering event type of the batch rules
+    private final Class< ?> eventType;
+    // the batch rules triggered by the event type (replaced when a rule is
+    // added)
+    volatile Rule< ?, ?>[] rules;
+    // the collected events, reused for all the cycles (only used by the agent
+    // cycle)
+    final List< Event< ?>> events = new ArrayList< Event< ?>>();
+    // the read-only view of the collected events, given to the rules
+    final List< Event< ?>> eventsView = Collections
+        .unmodifiableList(this.events);
+
+    private Batch(Class< ?> eventType, Rule< ?, ?> rule) {
+      this.eventType = eventType;
+      this.rules = new Rule< ?, ?>[] { rule };
+    }
+
+    /**
+     * Helper method used to add a batch rule (only used while the lock of the
+     * index is held).
+     * 
+     * @param rule
+     *          the batch rule
+     */
+    private void add(Rule< ?, ?> rule) {
+      Rule< ?, ?>[] newRules = new Rule< ?, ?>[this.rules.length + 1];
+      System.arraycopy(this.rules, 0, newRules, 0, this.rules.length);
+      newRules[this.rules.length] = rule;
+      this.rules = newRules;
+    }
+  }
+}
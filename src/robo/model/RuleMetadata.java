@@ -0,0 +1,116 @@
+package robo.model;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import robo.model.event.Event;
+
+/**
+ * The metadata of the rule classes, resolved once for each class and then
+ * cached, so adding rules (or creating many instances of the same rule class)
+ * does not use reflection again.
+ * 
+ * The triggering event type is resolved by following the generic superclasses
+ * from the rule class up to <code>Rule</code>, so it is also found for rules
+ * which are not direct subclasses of <code>Rule</code> (e.g. a rule class
+ * extending a generic base rule, which binds the event type).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 21:32:18
+ * 
+ */
+final class RuleMetadata {
+  // the triggering event types, for each rule class
+  private static final ConcurrentHashMap< Class< ?>, Class< ?>> triggeringEventTypes = new ConcurrentHashMap< Class< ?>, Class< ?>>();
+
+  private RuleMetadata() {
+  }
+
+  /**
+   * Get the triggering event type of a rule class.
+   * 
+   * @param ruleClass
+   *          the rule class
+   * @return the triggering event type (<code>Event</code> if it can't be
+   *         resolved, e.g. for a raw rule class)
+   */
+  static Class< ?> getTriggeringEventType(Class< ?> ruleClass) {
+    Class< ?> eventType = RuleMetadata.triggeringEventTypes.get(ruleClass);
+    if (eventType == null) {
+      eventType = RuleMetadata.resolveTriggeringEventType(ruleClass);
+      RuleMetadata.triggeringEventTypes.put(ruleClass, eventType);
+    }
+    return eventType;
+  }
+
+  /**
+   * Helper method used to resolve the triggering event type of a rule class.
+   * 
+   * @param ruleClass
+   *          the rule class
+   * @return the triggering event type
+   */
+  private static Class< ?> resolveTriggeringEventType(Class< ?> ruleClass) {
+    // the type arguments bound to the type variables of the superclasses
+    Map< TypeVariable< ?>, Type> bindings = new HashMap< TypeVariable< ?>, Type>();
+    Class< ?> current = ruleClass;
+    while (current != null && current != Rule.class) {
+      Class< ?> superclass = current.getSuperclass();
+      Type genericSuperclass = current.getGenericSuperclass();
+      if (genericSuperclass instanceof ParameterizedType) {
+        Type[] arguments = ((ParameterizedType) genericSuperclass)
+            .getActualTypeArguments();
+        TypeVariable< ?>[] variables = superclass.getTypeParameters();
+        for (int i = 0; i < variables.length; i++) {
+          bindings.put(variables[i],
+              RuleMetadata.resolve(arguments[i], bindings));
+        }
+      }
+      current = superclass;
+    }
+    Type eventType = bindings.get(Rule.class.getTypeParameters()[1]);
+    Class< ?> result = RuleMetadata.getRawClass(eventType);
+    return result != null ? result : Event.class;
+  }
+
+  /**
+   * Helper method used to replace a type variable with the type bound to it
+   * (if any).
+   * 
+   * @param type
+   *          the type
+   * @param bindings
+   *          the known bindings
+   * @return the bound type, or the type itself
+   */
+  private static Type resolve(Type type,
+      Map< TypeVariable< ?>, Type> bindings) {
+    if (type instanceof TypeVariable && bindings.containsKey(type)) {
+      return bindings.get(type);
+    }
+    return type;
+  }
+
+  /**
+   * Helper method used to get the class of a type: the raw class of a
+   * parameterized type, and the (first) bound of an unbound type variable.
+   * 
+   * @param type
+   *          the type
+   * @return the class, or null if the type is unknown
+   */
+  private static Class< ?> getRawClass(Type type) {
+    if (type instanceof Class) {
+      return (Class< ?>) type;
+    } else if (type instanceof ParameterizedType) {
+      return RuleMetadata.getRawClass(((ParameterizedType) type).getRawType());
+    } else if (type instanceof TypeVariable) {
+      return RuleMetadata.getRawClass(((TypeVariable< ?>) type).getBounds()[0]);
+    }
+    return null;
+  }
+}
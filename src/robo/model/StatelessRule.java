@@ -0,0 +1,89 @@
+package robo.model;
+
+import java.util.List;
+
+import robo.model.event.Event;
+
+/**
+ * A rule which keeps no state between its executions: instead of reading the
+ * <code>agent</code> and <code>triggeringEvent</code> fields (which are
+ * changed by each agent using the rule), each execution receives its own
+ * immutable <code>RuleContext</code> with the triggering event, the agent
+ * processing it and the emitter of the resulting events.
+ * 
+ * So, as long as the subclass itself has no mutable fields, the same rule
+ * instance can be added to any number of agents (of the declared agent type),
+ * which can execute it at the same time, and the rule can be declared
+ * side-effect isolated (see <code>isIsolated</code>) if it only emits
+ * events.
+ * 
+ * NOTE: stateless rules are not batch rules, and the <code>agent</code> and
+ * <code>triggeringEvent</code> fields are never set for them.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 21:58:40
+ * 
+ * @param <AgentRefType>
+ *          the type of the agents using this rule
+ * @param <TriggeringEventType>
+ *          the type of the events triggering this rule
+ */
+public abstract class StatelessRule< AgentRefType extends PhysicalAgent, TriggeringEventType extends Event< ? extends PhysicalAgent>>
+    extends Rule< AgentRefType, TriggeringEventType> {
+
+  public StatelessRule() {
+    super();
+  }
+
+  /**
+   * Create a stateless rule for which the triggering event type is explicitly
+   * given (see <code>Rule(triggeringEventType)</code>).
+   * 
+   * @param triggeringEventType
+   *          the type of the events triggering this rule
+   */
+  public StatelessRule(Class< ?> triggeringEventType) {
+    super(triggeringEventType);
+  }
+
+  /**
+   * Execute the rule for one event. The resulting events are emitted by using
+   * <code>context.emit</code>.
+   * 
+   * @param context
+   *          the context of this execution
+   */
+  protected abstract void execute(
+      RuleContext< AgentRefType, TriggeringEventType> context);
+
+  @Override
+  @SuppressWarnings("unchecked")
+  void invoke(RuleContext< ?, ?> context) {
+    this.execute((RuleContext< AgentRefType, TriggeringEventType>) context);
+  }
+
+  /**
+   * Stateless rules are never executed by using the mutable fields of the
+   * rule, so this method is not used.
+   * 
+   * @return null
+   */
+  @Override
+  protected final List< Event< ?>> execute() {
+    return null;
+  }
+
+  @Override
+  protected final boolean isBatchRule() {
+    return false;
+  }
+
+  /**
+   * The agent is given by the context of each execution, so it is not stored
+   * by the rule (the rule can be shared between agents).
+   */
+  @Override
+  void setAgent(PhysicalAgent agent) {
+    // nothing to do here
+  }
+}
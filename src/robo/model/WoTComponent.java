@@ -25,6 +25,7 @@ public abstract class WoTComponent extends PhysicalAgent {
    *          of the same parent component)
    */
   public WoTComponent(String name) {
+    this.useGloballyUniqueId();
     this.setName(name);
     this.components = new HashMap< String, WoTComponent>(1);
   }
@@ -90,6 +91,8 @@ public abstract class WoTComponent extends PhysicalAgent {
     for (String key : this.components.keySet()) {
       WoTComponent component = this.components.get(key);
       if (component != null) {
+        // components without their own runtime use the one of their parent
+        component.inheritRuntime(this);
         component.start();
       }
     }
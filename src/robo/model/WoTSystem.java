@@ -25,6 +25,7 @@ public abstract class WoTSystem extends PhysicalAgent {
   private Map< String, WoTComponent> components;
 
   public WoTSystem(String name) {
+    this.useGloballyUniqueId();
     this.components = new HashMap< String, WoTComponent>(1);
     this.setName(name);
   }
@@ -94,6 +95,8 @@ public abstract class WoTSystem extends PhysicalAgent {
     for (String key : this.components.keySet()) {
       WoTComponent component = this.components.get(key);
       if (component != null) {
+        // components without their own runtime use the one of their parent
+        component.inheritRuntime(this);
         component.start();
       }
     }
@@ -36,7 +36,7 @@ public abstract class Actuator extends WoTComponent {
   }
 
   @Override
-  public synchronized void on(Event< ?> event) {
+  public void on(Event< ?> event) {
     // for safety reasons, actuators refuses any command events which are not
     // meant for them, so we avoid playing with the fire by mistake!!!
     if (event != null && event instanceof ActuatorCommandEvent) {
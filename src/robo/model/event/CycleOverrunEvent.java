@@ -0,0 +1,34 @@
+package robo.model.event;
+
+import robo.model.PhysicalAgent;
+
+/**
+ * This event is triggered by an agent when one of its cycles (i.e.
+ * <code>onCycleStarts</code>, processing of the current events and
+ * <code>onCycleEnds</code>) took longer than the cycle budget of the agent.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 17:21:36
+ * 
+ */
+public class CycleOverrunEvent extends Event< PhysicalAgent> {
+  // the duration (in nanoseconds) of the cycle that exceeded the budget
+  private long cycleDuration = 0;
+  // the cycle budget (in nanoseconds) of the agent
+  private long cycleBudget = 0;
+
+  public CycleOverrunEvent(PhysicalAgent source, long cycleDuration,
+      long cycleBudget) {
+    super(source, EventPriority.HIGH);
+    this.cycleDuration = cycleDuration;
+    this.cycleBudget = cycleBudget;
+  }
+
+  public long getCycleDuration() {
+    return this.cycleDuration;
+  }
+
+  public long getCycleBudget() {
+    return this.cycleBudget;
+  }
+}
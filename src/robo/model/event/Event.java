@@ -1,26 +1,48 @@
 package robo.model.event;
 
-import java.util.Date;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import robo.comm.codec.JsonName;
+import robo.comm.codec.JsonWriter;
 import robo.model.Entity;
 import robo.model.PhysicalAgent;
+import robo.runtime.Clock;
 
 public abstract class Event< S> extends Entity {
+  // the updater of the references count (only used for pooled events)
+  @SuppressWarnings("rawtypes")
+  private static final AtomicIntegerFieldUpdater< Event> REFERENCES = AtomicIntegerFieldUpdater
+      .newUpdater(Event.class, "references");
+  // the names of the JSON fields
+  private static final JsonName OCCURRENCE_TIME = new JsonName(
+      "occurrenceTime");
+  private static final JsonName SOURCE_ID = new JsonName("sourceId");
+  private static final JsonName SOURCE_NAME = new JsonName("sourceName");
   // real time of the event occurrence
   private long occurrenceTime = -1;
+  // the time (in milliseconds, as for the occurrence time) until which the
+  // event should be processed, -1 if the event has no deadline
+  private long deadline = -1;
   // the priority level of the event
   private EventPriority priority = EventPriority.MEDIUM;
   // the source that generated the event
   // NOTE: source can be null for external events
   private S source = null;
+  // the pool which recycles the event, null if the event is not pooled
+  private EventPool< ?> pool = null;
+  // the number of references to a pooled event (the event is recycled when
+  // all of them are released)
+  private volatile int references = 0;
+  // the next event in the list of recycled events of the pool
+  Event< ?> nextPooled = null;
 
   public Event(S source) {
     super();
     this.source = source;
-    this.occurrenceTime = (new Date()).getTime();
+    this.occurrenceTime = Clock.getClock().currentTimeMillis();
   }
 
   public Event(S source, EventPriority priority) {
@@ -36,6 +58,25 @@ public abstract class Event< S> extends Entity {
     this.occurrenceTime = occurrenceTime;
   }
 
+  public long getDeadline() {
+    return this.deadline;
+  }
+
+  /**
+   * Set the time until which the event should be processed. The agents
+   * process the events with a close deadline before any other events.
+   * 
+   * NOTE: the deadline must be set before the event is sent to the agents,
+   * which count their pending events with a deadline.
+   * 
+   * @param deadline
+   *          the deadline (in milliseconds, as given by the agents
+   *          <code>Clock</code>), -1 for no deadline
+   */
+  public void setDeadline(long deadline) {
+    this.deadline = deadline;
+  }
+
   public EventPriority getPriority() {
     return this.priority;
   }
@@ -52,6 +93,75 @@ public abstract class Event< S> extends Entity {
     this.source = source;
   }
 
+  /**
+   * Check if the event is pooled, i.e. it is recycled once all its references
+   * are released (see <code>EventPool</code>).
+   * 
+   * @return true if the event is pooled, false otherwise
+   */
+  public boolean isPooled() {
+    return this.pool != null;
+  }
+
+  /**
+   * Add a reference to a pooled event, so it is not recycled until the
+   * reference is released. Any code that keeps a pooled event after the
+   * processing of the event ends (e.g. a listener which stores the event, or
+   * a rule which keeps it for the next events) must retain it. The agents
+   * retain the events kept in their mailboxes. For the events which are not
+   * pooled this method does nothing.
+   */
+  public void retain() {
+    if (this.pool != null) {
+      Event.REFERENCES.incrementAndGet(this);
+    }
+  }
+
+  /**
+   * Release a reference to a pooled event. The event is given back to its
+   * pool when all its references are released, and it must not be used
+   * anymore by the code which released it. For the events which are not
+   * pooled this method does nothing.
+   */
+  public void release() {
+    if (this.pool != null) {
+      int references = Event.REFERENCES.decrementAndGet(this);
+      if (references == 0) {
+        this.pool.recycle(this);
+      } else if (references < 0) {
+        throw new IllegalStateException(
+            "The event was already recycled when calling Event.release()!");
+      }
+    }
+  }
+
+  /**
+   * Helper method used by the pool to bind a new event to it.
+   * 
+   * @param pool
+   *          the pool
+   */
+  void setPool(EventPool< ?> pool) {
+    if (this.pool != null && this.pool != pool) {
+      throw new IllegalStateException(
+          "The event belongs to another pool when calling EventPool.acquire()!");
+    }
+    this.pool = pool;
+  }
+
+  /**
+   * Helper method used by the pool to prepare an event for a new use: the
+   * event has one reference (of the code which acquired it), the current
+   * occurrence time, no deadline, the default priority and no source.
+   */
+  void reuse() {
+    this.references = 1;
+    this.occurrenceTime = Clock.getClock().currentTimeMillis();
+    this.deadline = -1;
+    this.priority = EventPriority.MEDIUM;
+    this.source = null;
+  }
+
   public String toString() {
     return "{" + Event.class.getSimpleName() + ": priority = "
         + this.priority.name() + ", occurrenceTime = " + this.occurrenceTime
@@ -59,8 +169,7 @@ public abstract class Event< S> extends Entity {
   }
 
   public JSONObject toJson() throws JSONException {
-    JSONObject result = super.toJson();
-    result.remove("id");
+    JSONObject result = super.toJson(false);
     result.put("occurrenceTime", this.occurrenceTime);
     if (this.source != null && this.source instanceof PhysicalAgent) {
       PhysicalAgent source = ((PhysicalAgent) this.source);
@@ -72,4 +181,18 @@ public abstract class Event< S> extends Entity {
     }
     return result;
   }
+
+  @Override
+  public void writeJsonFields(JsonWriter writer) {
+    super.writeJsonFields(writer, false);
+    writer.name(Event.OCCURRENCE_TIME).value(this.occurrenceTime);
+    if (this.source != null && this.source instanceof PhysicalAgent) {
+      PhysicalAgent source = ((PhysicalAgent) this.source);
+      String sourceName = source.getName();
+      writer.name(Event.SOURCE_ID).value(source.getId());
+      if (sourceName != null && sourceName.length() > 0) {
+        writer.name(Event.SOURCE_NAME).value(sourceName);
+      }
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+package robo.model.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keep the listeners of an event source and deliver the events to them. A
+ * listener registered for an event type receives the events of that type and
+ * of all its subtypes (e.g. a listener registered for
+ * <code>SensorEvent</code> receives the <code>DistanceSensorEvent</code>
+ * events), while a listener registered for all the event types receives any
+ * event.
+ * 
+ * The listeners of each concrete event type are resolved once, the first time
+ * an event of that type is dispatched, and are cached as an immutable array
+ * (where a listener appears once for each registration it matches, so it
+ * receives the event once for each of them). The cache is dropped when the
+ * listeners change. The dispatch does not use any lock, so it can run
+ * concurrently with the registration of listeners.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 19:36:52
+ * 
+ */
+public class EventDispatcher {
+  // the dispatch array of the event types without listeners
+  private static final EventListener[] NO_LISTENERS = new EventListener[0];
+  // the current registrations together with the dispatch arrays resolved for
+  // them (replaced as a whole when the listeners change)
+  private volatile DispatchTable table = new DispatchTable(
+      new Registration[0]);
+  // the lock used by the threads changing the listeners
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Register a listener for all the event types.
+   * 
+   * @param eventListener
+   *          the listener
+   * @return true if the listener was registered, false otherwise (e.g. the
+   *         listener is null)
+   */
+  public boolean addListener(EventListener eventListener) {
+    if (eventListener == null) {
+      return false;
+    }
+    this.add(new Registration(null, eventListener));
+    return true;
+  }
+
+  /**
+   * Register a listener for an event type and all its subtypes.
+   * 
+   * @param eventType
+   *          the event type
+   * @param eventListener
+   *          the listener
+   * @return true if the listener was registered, false otherwise (e.g. the
+   *         event type or the listener is null)
+   */
+  public boolean addListenerForEventType(Class< ? extends Event< ?>> eventType,
+      EventListener eventListener) {
+    if (eventType == null || eventListener == null) {
+      return false;
+    }
+    this.add(new Registration(eventType, eventListener));
+    return true;
+  }
+
+  /**
+   * Remove all the registrations of a listener.
+   * 
+   * @param eventListener
+   *          the listener
+   * @return true if the listener was registered, false otherwise
+   */
+  public boolean removeListener(EventListener eventListener) {
+    this.lock.lock();
+    try {
+      Registration[] registrations = this.table.registrations;
+      List< Registration> kept = new ArrayList< Registration>(
+          registrations.length);
+      for (Registration registration : registrations) {
+        if (registration.listener != eventListener) {
+          kept.add(registration);
+        }
+      }
+      if (kept.size() == registrations.length) {
+        return false;
+      }
+      this.table = new DispatchTable(kept.toArray(new Registration[kept
+          .size()]));
+      return true;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Get the listeners which receive the events of a given type. The typed
+   * listeners come first (in the order of their registration), followed by
+   * the listeners registered for all the event types. A listener appears once
+   * for each of its matching registrations.
+   * 
+   * @param eventType
+   *          the concrete event type
+   * @return the listeners (the array must not be modified)
+   */
+  public EventListener[] getListeners(Class< ?> eventType) {
+    DispatchTable table = this.table;
+    EventListener[] listeners = table.listenersByEventType.get(eventType);
+    if (listeners == null) {
+      listeners = table.resolve(eventType);
+      table.listenersByEventType.put(eventType, listeners);
+    }
+    return listeners;
+  }
+
+  /**
+   * Deliver an event to all the listeners of its type.
+   * 
+   * @param event
+   *          the event
+   */
+  public void dispatch(Event< ?> event) {
+    EventListener[] listeners = this.getListeners(event.getClass());
+    for (int i = 0; i < listeners.length; i++) {
+      listeners[i].on(event);
+    }
+  }
+
+  /**
+   * Helper method used to add a registration.
+   * 
+   * @param registration
+   *          the new registration
+   */
+  private void add(Registration registration) {
+    this.lock.lock();
+    try {
+      Registration[] registrations = this.table.registrations;
+      Registration[] newRegistrations = new Registration[registrations.length + 1];
+      System.arraycopy(registrations, 0, newRegistrations, 0,
+          registrations.length);
+      newRegistrations[registrations.length] = registration;
+      this.table = new DispatchTable(newRegistrations);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * A listener together with the event type it was registered for.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 19:36:52
+   * 
+   */
+  private static class Registration {
+    // the event type, null for all the event types
+    private final Class< ?> eventType;
+    // the listener
+    private final EventListener listener;
+
+    private Registration(Class< ?> eventType, EventListener listener) {
+      this.eventType = eventType;
+      this.listener = listener;
+    }
+  }
+
+  /**
+   * An immutable set of registrations, together with the dispatch arrays
+   * resolved for them, for each concrete event type.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 19:36:52
+   * 
+   */
+  private static class DispatchTable {
+    // the registrations, in their order
+    private final Registration[] registrations;
+    // the resolved listeners, for each concrete event type
+    private final ConcurrentHashMap< Class< ?>, EventListener[]> listenersByEventType = new ConcurrentHashMap< Class< ?>, EventListener[]>();
+
+    private DispatchTable(Registration[] registrations) {
+      this.registrations = registrations;
+    }
+
+    /**
+     * Resolve the listeners of a concrete event type.
+     * 
+     * @param eventType
+     *          the concrete event type
+     * @return the listeners of the event type
+     */
+    private EventListener[] resolve(Class< ?> eventType) {
+      List< EventListener> listeners = new ArrayList< EventListener>();
+      for (Registration registration : this.registrations) {
+        if (registration.eventType != null
+            && registration.eventType.isAssignableFrom(eventType)) {
+          listeners.add(registration.listener);
+        }
+      }
+      for (Registration registration : this.registrations) {
+        if (registration.eventType == null) {
+          listeners.add(registration.listener);
+        }
+      }
+      if (listeners.isEmpty()) {
+        return EventDispatcher.NO_LISTENERS;
+      }
+      return listeners.toArray(new EventListener[listeners.size()]);
+    }
+  }
+}
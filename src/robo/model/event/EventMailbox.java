@@ -0,0 +1,655 @@
+package robo.model.event;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A lock-free multi-producer/single-consumer queue of events. Any number of
+ * threads can add events to the mailbox (with O(1) cost and without waiting
+ * for each other), while normally only one thread (the agent owning the
+ * mailbox) extracts events from it.
+ * 
+ * By default the mailbox is unbounded. A capacity can be set, together with
+ * the <code>OverflowPolicy</code> which decides what happens with the events
+ * that arrive when the mailbox is full. The number of dropped events is
+ * counted for each mailbox.
+ * 
+ * Events can also be added in conflated mode: a new event replaces (in place)
+ * the pending event of the same type and from the same source, if such an
+ * event exists, so the consumer only gets the latest one.
+ * 
+ * NOTE1: an event added by a producer may become visible to the consumer with
+ * a very small delay (the time needed by the producer to link it), so the
+ * producers must wake up the consumer after adding events.
+ * 
+ * NOTE2: the producers may also remove events (e.g. when the oldest event is
+ * dropped), so the head of the queue is moved by using CAS operations and the
+ * thread which succeeds to move it is the owner of the extracted event.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 13:41:08
+ * 
+ */
+public class EventMailbox {
+  // updater used to atomically take or replace the event of a node
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater< Node, Event> NODE_EVENT = AtomicReferenceFieldUpdater
+      .newUpdater(Node.class, Event.class, "event");
+  // the first node of the queue, it is always an empty node whose next node
+  // contains the oldest event
+  private final AtomicReference< Node> head;
+  // the last node of the queue (used by the producers)
+  private final AtomicReference< Node> tail;
+  // the number of events in the mailbox (including the ones for which a
+  // producer already reserved room but did not link them yet)
+  private final AtomicInteger size;
+  // the number of events dropped because the mailbox was full
+  private final AtomicLong droppedCount;
+  // the number of events replaced by newer events added in conflated mode
+  private final AtomicLong conflatedCount;
+  // the number of events in the mailbox which have a deadline
+  private final AtomicInteger deadlineCount;
+  // the pending nodes of the events added in conflated mode, indexed by the
+  // event type and then by the event source
+  private final ConcurrentHashMap< Class< ?>, ConcurrentHashMap< Object, Node>> pendingNodes;
+  // the maximum number of events in the mailbox
+  private volatile int capacity = Integer.MAX_VALUE;
+  // what happens with the events that arrive when the mailbox is full
+  private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+  // the maximum time (in milliseconds) a producer waits for room in the
+  // mailbox when the OverflowPolicy.BLOCK policy is used
+  private volatile long blockTimeout = 0;
+  // the number of producers waiting for room in the mailbox
+  private final AtomicInteger waitingProducers;
+  // lock and condition used by the producers waiting for room in the mailbox
+  private final ReentrantLock notFullLock;
+  private final Condition notFull;
+
+  /**
+   * Create an empty, unbounded mailbox.
+   */
+  public EventMailbox() {
+    Node empty = new Node(null);
+    this.head = new AtomicReference< Node>(empty);
+    this.tail = new AtomicReference< Node>(empty);
+    this.size = new AtomicInteger(0);
+    this.droppedCount = new AtomicLong(0);
+    this.conflatedCount = new AtomicLong(0);
+    this.deadlineCount = new AtomicInteger(0);
+    this.pendingNodes = new ConcurrentHashMap< Class< ?>, ConcurrentHashMap< Object, Node>>(
+        1);
+    this.waitingProducers = new AtomicInteger(0);
+    this.notFullLock = new ReentrantLock();
+    this.notFull = this.notFullLock.newCondition();
+  }
+
+  /**
+   * Set the capacity of the mailbox and the policy used when the mailbox is
+   * full.
+   * 
+   * @param capacity
+   *          the maximum number of events in the mailbox (must be positive)
+   * @param overflowPolicy
+   *          the policy used when an event arrives and the mailbox is full
+   * @param blockTimeout
+   *          the maximum time (in milliseconds) a producer waits for room in
+   *          the mailbox, only used with <code>OverflowPolicy.BLOCK</code>
+   */
+  public void setCapacity(int capacity, OverflowPolicy overflowPolicy,
+      long blockTimeout) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException(
+          "Only positive values are allowed as capacity when calling EventMailbox.setCapacity(capacity, overflowPolicy, blockTimeout)!");
+    } else if (overflowPolicy == null) {
+      throw new IllegalArgumentException(
+          "A null overflow policy is not allowed when calling EventMailbox.setCapacity(capacity, overflowPolicy, blockTimeout)!");
+    } else if (blockTimeout < 0) {
+      throw new IllegalArgumentException(
+          "Negative values are not allowed as block timeout when calling EventMailbox.setCapacity(capacity, overflowPolicy, blockTimeout)!");
+    }
+    this.capacity = capacity;
+    this.overflowPolicy = overflowPolicy;
+    this.blockTimeout = blockTimeout;
+    this.signalNotFull();
+  }
+
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return this.overflowPolicy;
+  }
+
+  public long getBlockTimeout() {
+    return this.blockTimeout;
+  }
+
+  /**
+   * Get the number of events dropped since this mailbox was created, because
+   * the mailbox was full.
+   * 
+   * @return the number of dropped events
+   */
+  public long getDroppedCount() {
+    return this.droppedCount.get();
+  }
+
+  /**
+   * Get the number of pending events replaced by newer events added in
+   * conflated mode, since this mailbox was created.
+   * 
+   * @return the number of replaced events
+   */
+  public long getConflatedCount() {
+    return this.conflatedCount.get();
+  }
+
+  /**
+   * Get the number of events in the mailbox which have a deadline (see
+   * <code>Event.setDeadline</code>). The consumer can use it to skip looking
+   * for such events when there are none.
+   * 
+   * @return the number of events with a deadline
+   */
+  public int getDeadlineCount() {
+    return this.deadlineCount.get();
+  }
+
+  /**
+   * Add an event to the mailbox. This method can be used concurrently by any
+   * number of threads. If the mailbox is full, then its overflow policy
+   * decides what happens.
+   * 
+   * NOTE1: with <code>OverflowPolicy.BLOCK</code>, the calling thread may wait
+   * for room in the mailbox, so the agent owning the mailbox must not add
+   * events to its own (full) mailbox.
+   * 
+   * NOTE2: the mailbox takes over a reference of a pooled event (see
+   * <code>EventPool</code>): the events which are dropped, replaced or
+   * cleared are released by the mailbox, while the extracted events are
+   * handed over (with their reference) to the consumer.
+   * 
+   * @param event
+   *          the event to add (must not be null)
+   * @return true if the event was added to the mailbox, false if it was
+   *         dropped
+   */
+  public boolean offer(Event< ?> event) {
+    return this.enqueue(event, null);
+  }
+
+  /**
+   * Add an event to the mailbox in conflated mode: if a pending event of the
+   * same type and from the same source exists, then it is replaced (in place)
+   * by the new event, otherwise the new event is added as with
+   * <code>offer</code>. Events without a source are never conflated.
+   * 
+   * @param event
+   *          the event to add (must not be null)
+   * @return true if the event was added to the mailbox (or replaced a pending
+   *         event), false if it was dropped
+   */
+  public boolean offerConflated(Event< ?> event) {
+    Object source = event.getSource();
+    if (source == null) {
+      return this.enqueue(event, null);
+    }
+    ConcurrentHashMap< Object, Node> pendingBySource = this.pendingNodes
+        .get(event.getClass());
+    if (pendingBySource == null) {
+      pendingBySource = new ConcurrentHashMap< Object, Node>();
+      ConcurrentHashMap< Object, Node> existing = this.pendingNodes
+          .putIfAbsent(event.getClass(), pendingBySource);
+      if (existing != null) {
+        pendingBySource = existing;
+      }
+    }
+    Node node = pendingBySource.get(source);
+    if (node != null) {
+      Event< ?> pending = node.event;
+      // fails if the pending event was extracted in the meantime
+      if (pending != null && this.swap(node, pending, event)) {
+        this.conflatedCount.incrementAndGet();
+        pending.release();
+        return true;
+      }
+    }
+    return this.enqueue(event, pendingBySource);
+  }
+
+  /**
+   * Helper method used to add a new node to the mailbox, by considering the
+   * mailbox capacity and its overflow policy.
+   * 
+   * @param event
+   *          the event to add
+   * @param pendingBySource
+   *          the index where the new node has to be registered (for events
+   *          added in conflated mode), or null
+   * @return true if the event was added to the mailbox, false if it was
+   *         dropped
+   */
+  private boolean enqueue(Event< ?> event,
+      ConcurrentHashMap< Object, Node> pendingBySource) {
+    if (this.size.incrementAndGet() <= this.capacity) {
+      this.link(event, pendingBySource);
+      return true;
+    }
+    switch (this.overflowPolicy) {
+    case DROP_OLDEST:
+      this.dropOldest();
+      this.link(event, pendingBySource);
+      return true;
+    case CONFLATE:
+      if (this.replace(event)) {
+        this.size.decrementAndGet();
+        this.droppedCount.incrementAndGet();
+        return true;
+      }
+      this.dropOldest();
+      this.link(event, pendingBySource);
+      return true;
+    case BLOCK:
+      this.size.decrementAndGet();
+      if (this.awaitRoom()) {
+        this.link(event, pendingBySource);
+        return true;
+      }
+      this.droppedCount.incrementAndGet();
+      event.release();
+      return false;
+    default:
+      this.size.decrementAndGet();
+      this.droppedCount.incrementAndGet();
+      event.release();
+      return false;
+    }
+  }
+
+  /**
+   * Extract the oldest event from the mailbox.
+   * 
+   * @return the oldest event, or null if the mailbox is empty
+   */
+  public Event< ?> poll() {
+    for (;;) {
+      Node first = this.head.get();
+      Node next = first.next;
+      if (next == null) {
+        return null;
+      }
+      // the thread that moves the head is the owner of the event
+      if (this.head.compareAndSet(first, next)) {
+        Event< ?> event = this.take(next);
+        if (event == null) {
+          // the event was already extracted by drainSelected
+          continue;
+        }
+        this.size.decrementAndGet();
+        this.signalNotFull();
+        return event;
+      }
+    }
+  }
+
+  /**
+   * Extract all the events which are currently in the mailbox and add them (in
+   * the order of their arrival) to the given list. The events added by the
+   * producers while this method runs are left for the next call, so the
+   * consumer can't be kept busy forever.
+   * 
+   * @param events
+   *          the list where the extracted events are added
+   * @return the number of extracted events
+   */
+  public int drainTo(List< Event< ?>> events) {
+    return this.drainTo(events, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Extract at most the given number of events (the oldest ones) and add them
+   * (in the order of their arrival) to the given list. The other events are
+   * left in the mailbox, where its capacity and overflow policy still apply
+   * to them.
+   * 
+   * @param events
+   *          the list where the extracted events are added
+   * @param maxCount
+   *          the maximum number of events to extract
+   * @return the number of extracted events
+   */
+  public int drainTo(List< Event< ?>> events, int maxCount) {
+    int count = 0;
+    // the size is increased before an event is linked, so it is never smaller
+    // than the number of events that can be extracted
+    int size = this.size.get();
+    if (size < maxCount) {
+      maxCount = size;
+    }
+    Event< ?> event = null;
+    while (count < maxCount && (event = this.poll()) != null) {
+      events.add(event);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Extract (from any position of the queue) at most the given number of
+   * events which are accepted by a selector, and add them (in the order of
+   * their arrival) to the given list. The other events are left in the
+   * mailbox, in the same order.
+   * 
+   * NOTE: all the events of the mailbox are checked, so the cost of this
+   * method is proportional with the number of pending events.
+   * 
+   * @param selector
+   *          the selector deciding which events are extracted
+   * @param events
+   *          the list where the extracted events are added
+   * @param maxCount
+   *          the maximum number of events to extract
+   * @return the number of extracted events
+   */
+  public int drainSelected(Selector selector, List< Event< ?>> events,
+      int maxCount) {
+    int count = 0;
+    Node node = this.head.get().next;
+    while (node != null && count < maxCount) {
+      Event< ?> event = node.event;
+      // fails if the event was extracted or replaced in the meantime
+      if (event != null && selector.select(event)
+          && NODE_EVENT.compareAndSet(node, event, null)) {
+        // the node stays in the queue (without event) until the head passes
+        // over it, but it no longer counts as a pending event
+        this.unregister(node, event);
+        this.countDeadline(event, -1);
+        this.size.decrementAndGet();
+        events.add(event);
+        count++;
+      }
+      node = node.next;
+    }
+    if (count > 0) {
+      this.signalNotFull();
+    }
+    return count;
+  }
+
+  /**
+   * Remove all the events from the mailbox. The removed events are not counted
+   * as dropped events.
+   */
+  public void clear() {
+    Event< ?> event = null;
+    while ((event = this.poll()) != null) {
+      event.release();
+    }
+  }
+
+  /**
+   * Check if the mailbox contains events.
+   * 
+   * @return true if the mailbox does not contain events, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.size.get() == 0;
+  }
+
+  /**
+   * Get the number of events in the mailbox.
+   * 
+   * @return the number of events in the mailbox
+   */
+  public int size() {
+    return this.size.get();
+  }
+
+  /**
+   * Helper method used to link a new node (for which room was already
+   * reserved) at the end of the queue.
+   * 
+   * @param event
+   *          the event of the new node
+   * @param pendingBySource
+   *          the index where the new node has to be registered (for events
+   *          added in conflated mode), or null
+   */
+  private void link(Event< ?> event,
+      ConcurrentHashMap< Object, Node> pendingBySource) {
+    Node node = new Node(event);
+    // counted before being linked, so the count never misses an event which
+    // can be extracted
+    this.countDeadline(event, 1);
+    if (pendingBySource != null) {
+      // the node is registered before being linked, so it can't be extracted
+      // (and unregistered) before being registered
+      node.pendingBySource = pendingBySource;
+      pendingBySource.put(event.getSource(), node);
+    }
+    Node previous = this.tail.getAndSet(node);
+    previous.next = node;
+  }
+
+  /**
+   * Helper method used to take the event of a node which was just removed
+   * from the queue (i.e. the head was moved to it).
+   * 
+   * @param node
+   *          the removed node
+   * @return the event of the node
+   */
+  private Event< ?> take(Node node) {
+    Event< ?> event = NODE_EVENT.getAndSet(node, null);
+    if (event != null) {
+      this.unregister(node, event);
+      this.countDeadline(event, -1);
+    }
+    return event;
+  }
+
+  /**
+   * Helper method used to replace (in place) the pending event of a node.
+   * 
+   * @param node
+   *          the node
+   * @param pending
+   *          the pending event of the node
+   * @param event
+   *          the new event
+   * @return true if the event was replaced, false if the pending event was
+   *         extracted or replaced in the meantime
+   */
+  private boolean swap(Node node, Event< ?> pending, Event< ?> event) {
+    // the new event is counted before it can be extracted
+    this.countDeadline(event, 1);
+    if (NODE_EVENT.compareAndSet(node, pending, event)) {
+      this.countDeadline(pending, -1);
+      return true;
+    }
+    this.countDeadline(event, -1);
+    return false;
+  }
+
+  /**
+   * Helper method used to update the number of events with a deadline, when
+   * an event enters or leaves the mailbox.
+   * 
+   * @param event
+   *          the event
+   * @param delta
+   *          1 if the event enters the mailbox, -1 if it leaves it
+   */
+  private void countDeadline(Event< ?> event, int delta) {
+    if (event.getDeadline() > 0) {
+      this.deadlineCount.addAndGet(delta);
+    }
+  }
+
+  /**
+   * Helper method used to unregister a node whose event was extracted, if the
+   * event was added in conflated mode.
+   * 
+   * @param node
+   *          the node
+   * @param event
+   *          the extracted event of the node
+   */
+  private void unregister(Node node, Event< ?> event) {
+    if (node.pendingBySource != null) {
+      // a registered node keeps alive all the nodes linked after it, so it
+      // must be unregistered once extracted
+      node.pendingBySource.remove(event.getSource(), node);
+      node.pendingBySource = null;
+    }
+  }
+
+  /**
+   * Helper method used to drop the oldest events of the mailbox, until its
+   * size (including the new event) no longer exceeds the capacity.
+   */
+  private void dropOldest() {
+    while (this.size.get() > this.capacity) {
+      Node first = this.head.get();
+      Node next = first.next;
+      if (next == null) {
+        // all the events are reserved but not yet linked by other producers,
+        // so the capacity is exceeded until the next drop or extraction
+        return;
+      }
+      if (this.head.compareAndSet(first, next)) {
+        Event< ?> event = this.take(next);
+        if (event == null) {
+          // the event was already extracted by drainSelected
+          continue;
+        }
+        this.size.decrementAndGet();
+        this.droppedCount.incrementAndGet();
+        event.release();
+      }
+    }
+  }
+
+  /**
+   * Helper method used to replace a pending event which has the same type and
+   * source as the new event.
+   * 
+   * @param event
+   *          the new event
+   * @return true if a pending event was replaced, false otherwise
+   */
+  private boolean replace(Event< ?> event) {
+    Node node = this.head.get().next;
+    while (node != null) {
+      Event< ?> pending = node.event;
+      if (pending != null && pending.getClass() == event.getClass()
+          && pending.getSource() == event.getSource()) {
+        // fails if the pending event was extracted in the meantime
+        if (this.swap(node, pending, event)) {
+          pending.release();
+          return true;
+        }
+      }
+      node = node.next;
+    }
+    return false;
+  }
+
+  /**
+   * Helper method used by the producers to wait until room is available in the
+   * mailbox, or until the block timeout expires.
+   * 
+   * @return true if room was reserved for a new event, false otherwise
+   */
+  private boolean awaitRoom() {
+    long remaining = TimeUnit.MILLISECONDS.toNanos(this.blockTimeout);
+    this.notFullLock.lock();
+    this.waitingProducers.incrementAndGet();
+    try {
+      while (!this.tryReserve()) {
+        if (remaining <= 0) {
+          return false;
+        }
+        remaining = this.notFull.awaitNanos(remaining);
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      this.waitingProducers.decrementAndGet();
+      this.notFullLock.unlock();
+    }
+  }
+
+  /**
+   * Helper method used to reserve room for a new event, only if the mailbox is
+   * not full.
+   * 
+   * @return true if room was reserved, false if the mailbox is full
+   */
+  private boolean tryReserve() {
+    for (;;) {
+      int currentSize = this.size.get();
+      if (currentSize >= this.capacity) {
+        return false;
+      }
+      if (this.size.compareAndSet(currentSize, currentSize + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Helper method used to wake up the producers waiting for room in the
+   * mailbox (if any).
+   */
+  private void signalNotFull() {
+    if (this.waitingProducers.get() > 0) {
+      this.notFullLock.lock();
+      try {
+        this.notFull.signalAll();
+      } finally {
+        this.notFullLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Decide which events are extracted by <code>drainSelected</code>.
+   */
+  public interface Selector {
+    /**
+     * Check if an event has to be extracted from the mailbox.
+     * 
+     * @param event
+     *          the pending event
+     * @return true if the event has to be extracted, false otherwise
+     */
+    boolean select(Event< ?> event);
+  }
+
+  /**
+   * A node of the queue.
+   */
+  private static final class Node {
+    // NOTE: not private, so the field updater can access it on all platforms
+    volatile Event< ?> event;
+    private volatile Node next;
+    // the index where this node is registered (only for events added in
+    // conflated mode)
+    private ConcurrentHashMap< Object, Node> pendingBySource;
+
+    private Node(Event< ?> event) {
+      this.event = event;
+    }
+  }
+}
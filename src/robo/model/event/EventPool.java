@@ -0,0 +1,123 @@
+package robo.model.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pool of reusable events, for the event types produced at high rates (e.g.
+ * the readings of a sensor), so a steady stream of events creates no garbage.
+ * An acquired event has one reference, owned by the code which acquired it.
+ * The agents receiving the event retain it while it waits in their mailboxes
+ * and release it when its processing ends, so the producer simply releases
+ * its own reference after triggering the event:
+ * 
+ * <pre>
+ * DistanceSensorEvent event = pool.acquire();
+ * event.setDistance(distance);
+ * this.trigger(event);
+ * event.release();
+ * </pre>
+ * 
+ * The event is recycled when all its references are released. The events
+ * emitted (or returned) by rules are released by the agent after they are
+ * triggered, so rules hand their own reference over to the agent.
+ * 
+ * NOTE1: an event has to be acquired by one thread at a time (e.g. by the
+ * cycle of the sensor producing it), while it can be released by any thread.
+ * 
+ * NOTE2: an acquired event keeps the values of its own fields from its
+ * previous use, so all of them have to be set (the occurrence time, the
+ * deadline, the priority and the source are reset to their defaults).
+ * 
+ * NOTE3: a rule which emits a pooled event it did not acquire (e.g. it
+ * forwards its triggering event) must retain it first.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 22:47:15
+ * 
+ * @param <E>
+ *          the type of the pooled events
+ */
+public abstract class EventPool< E extends Event< ?>> {
+  // the recycled events, released by any thread (a stack linked through the
+  // events themselves, so recycling allocates nothing)
+  private final AtomicReference< Event< ?>> recycled = new AtomicReference< Event< ?>>();
+  // the recycled events taken over by the thread acquiring the events (only
+  // used by that thread)
+  private Event< ?> available = null;
+  // the number of events created by the pool
+  private final AtomicLong createdCount = new AtomicLong(0);
+  // the number of events recycled by the pool
+  private final AtomicLong recycledCount = new AtomicLong(0);
+
+  /**
+   * Create a new event for this pool. This is called when no recycled event
+   * is available.
+   * 
+   * @return the new event
+   */
+  protected abstract E create();
+
+  /**
+   * Get an event from the pool (a recycled one, if available). The caller
+   * owns one reference to the event and must release it when done.
+   * 
+   * @return the event
+   */
+  @SuppressWarnings("unchecked")
+  public E acquire() {
+    Event< ?> event = this.available;
+    if (event == null) {
+      // all the events recycled in the meantime are taken at once
+      event = this.recycled.getAndSet(null);
+    }
+    if (event != null) {
+      this.available = event.nextPooled;
+      event.nextPooled = null;
+    } else {
+      event = this.create();
+      if (event == null) {
+        throw new IllegalStateException(
+            "No event was created when calling EventPool.acquire()!");
+      }
+      event.setPool(this);
+      this.createdCount.incrementAndGet();
+    }
+    event.reuse();
+    return (E) event;
+  }
+
+  /**
+   * Get the number of events created by the pool. In a steady state, this is
+   * the maximum number of events in use at the same time.
+   * 
+   * @return the number of created events
+   */
+  public long getCreatedCount() {
+    return this.createdCount.get();
+  }
+
+  /**
+   * Get the number of times the events of the pool were recycled.
+   * 
+   * @return the number of recycled events
+   */
+  public long getRecycledCount() {
+    return this.recycledCount.get();
+  }
+
+  /**
+   * Give back an event whose references were all released.
+   * 
+   * @param event
+   *          the event
+   */
+  void recycle(Event< ?> event) {
+    Event< ?> head = null;
+    do {
+      head = this.recycled.get();
+      event.nextPooled = head;
+    } while (!this.recycled.compareAndSet(head, event));
+    this.recycledCount.incrementAndGet();
+  }
+}
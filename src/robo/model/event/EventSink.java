@@ -0,0 +1,22 @@
+package robo.model.event;
+
+/**
+ * Receiver of the events resulting from the execution of a rule. The sink is
+ * supplied by the agent executing the rule and is reused for all the
+ * executions, so emitting an event allocates nothing.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 22:21:06
+ * 
+ */
+public interface EventSink {
+  /**
+   * Emit a resulting event. The resulting events are triggered by the agent
+   * after the rules of the current events are executed, in the order they
+   * were emitted.
+   * 
+   * @param event
+   *          the resulting event (ignored if null)
+   */
+  public void emit(Event< ?> event);
+}
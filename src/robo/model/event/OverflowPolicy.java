@@ -0,0 +1,22 @@
+package robo.model.event;
+
+/**
+ * Define what happens when an event is added to a mailbox which already
+ * reached its capacity.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 14:20:16
+ * 
+ */
+public enum OverflowPolicy {
+  // the oldest event from the mailbox is dropped to make room for the new one
+  DROP_OLDEST,
+  // the new event is dropped
+  DROP_NEWEST,
+  // the producer waits (at most the configured timeout) until room is made in
+  // the mailbox, and the new event is dropped if the timeout expires
+  BLOCK,
+  // the new event replaces the pending event of the same type and from the
+  // same source, or the oldest event is dropped if no such event exists
+  CONFLATE
+}
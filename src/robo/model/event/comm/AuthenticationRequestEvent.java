@@ -5,10 +5,14 @@ import org.json.JSONObject;
 
 import robo.comm.Account;
 import robo.comm.Telegraf;
+import robo.comm.codec.JsonName;
+import robo.comm.codec.JsonWriter;
 import robo.model.event.EventPriority;
 
 public class AuthenticationRequestEvent extends
     CommunicationEvent< Telegraf< ?, ?>> {
+  // the names of the JSON fields
+  private static final JsonName ACCOUNT = new JsonName("account");
   private Account account = null;
 
   public AuthenticationRequestEvent(Telegraf< ?, ?> source, Account account) {
@@ -34,4 +38,14 @@ public class AuthenticationRequestEvent extends
     }
     return result;
   }
+
+  @Override
+  public void writeJsonFields(JsonWriter writer) {
+    super.writeJsonFields(writer);
+    if (this.account != null) {
+      writer.name(AuthenticationRequestEvent.ACCOUNT).beginObject();
+      this.account.writeJsonFields(writer);
+      writer.endObject();
+    }
+  }
 }
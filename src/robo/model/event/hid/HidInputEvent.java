@@ -3,10 +3,14 @@ package robo.model.event.hid;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import robo.comm.codec.JsonName;
+import robo.comm.codec.JsonWriter;
 import robo.model.event.EventPriority;
 import robo.model.hid.Hid;
 
 public class HidInputEvent extends HidEvent {
+  // the names of the JSON fields
+  private static final JsonName DATA = new JsonName("data");
   private JSONObject data;
 
   public HidInputEvent(Hid source, JSONObject data, EventPriority priority) {
@@ -19,6 +23,10 @@ public class HidInputEvent extends HidEvent {
     this.data = data;
   }
 
+  public JSONObject getData() {
+    return this.data;
+  }
+
   public JSONObject toJson() throws JSONException {
     JSONObject result = super.toJson();
     if (this.data != null) {
@@ -27,4 +35,11 @@ public class HidInputEvent extends HidEvent {
     return result;
   }
 
+  @Override
+  public void writeJsonFields(JsonWriter writer) {
+    super.writeJsonFields(writer);
+    if (this.data != null) {
+      writer.name(HidInputEvent.DATA).rawValue(this.data);
+    }
+  }
 }
@@ -3,10 +3,14 @@ package robo.model.event.hid;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import robo.comm.codec.JsonName;
+import robo.comm.codec.JsonWriter;
 import robo.model.event.EventPriority;
 import robo.model.hid.Hid;
 
 public class HidOutputEvent extends HidEvent {
+  // the names of the JSON fields
+  private static final JsonName DATA = new JsonName("data");
   private JSONObject data;
 
   public HidOutputEvent(Hid source, JSONObject data, EventPriority priority) {
@@ -23,6 +27,10 @@ public class HidOutputEvent extends HidEvent {
     super(source);
   }
 
+  public JSONObject getData() {
+    return this.data;
+  }
+
   public JSONObject toJson() throws JSONException {
     JSONObject result = super.toJson();
     if (this.data != null) {
@@ -30,4 +38,12 @@ public class HidOutputEvent extends HidEvent {
     }
     return result;
   }
+
+  @Override
+  public void writeJsonFields(JsonWriter writer) {
+    super.writeJsonFields(writer);
+    if (this.data != null) {
+      writer.name(HidOutputEvent.DATA).rawValue(this.data);
+    }
+  }
 }
\ No newline at end of file
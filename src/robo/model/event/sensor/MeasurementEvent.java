@@ -0,0 +1,27 @@
+package robo.model.event.sensor;
+
+/**
+ * A sensor event carrying one measured value (e.g. a distance, a voltage or a
+ * temperature). The measured values of the events triggered by the same
+ * sensor form a time series, which can be sent in compressed telemetry
+ * batches instead of one event at a time.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 19, 2026, 01:12:37
+ * 
+ */
+public interface MeasurementEvent {
+  /**
+   * Get the measured value.
+   * 
+   * @return the measured value
+   */
+  public double getMeasuredValue();
+
+  /**
+   * Get the unit of the measured value.
+   * 
+   * @return the unit, or null if the value has no unit
+   */
+  public Enum< ?> getMeasuredUnit();
+}
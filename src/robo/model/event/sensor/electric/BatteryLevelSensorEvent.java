@@ -3,10 +3,17 @@ package robo.model.event.sensor.electric;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import robo.comm.codec.JsonName;
+import robo.comm.codec.JsonWriter;
 import robo.model.MeasurementUnit;
+import robo.model.event.sensor.MeasurementEvent;
 import robo.model.sensor.electric.BatteryLevelSensor;
 
-public class BatteryLevelSensorEvent extends ElectricSensorEvent {
+public class BatteryLevelSensorEvent extends ElectricSensorEvent
+    implements MeasurementEvent {
+  // the names of the JSON fields
+  private static final JsonName UNIT = new JsonName("unit");
+  private static final JsonName BATTERY_LEVEL = new JsonName("batteryLevel");
   protected double level = 0.0f;
   protected MeasurementUnit.Generic unit = MeasurementUnit.Generic.PERCENT;
 
@@ -23,10 +30,39 @@ public class BatteryLevelSensorEvent extends ElectricSensorEvent {
     return this.level;
   }
 
+  /**
+   * Set the battery level (used when a pooled event is reused).
+   * 
+   * @param level
+   *          the battery level, in percents
+   */
+  public void setBatteryLevel(double level) {
+    this.level = level;
+  }
+
   public JSONObject toJson() throws JSONException {
     JSONObject result = super.toJson();
     result.put("unit", this.unit);
     result.put("batteryLevel", this.level);
     return result;
   }
+
+  @Override
+  public void writeJsonFields(JsonWriter writer) {
+    super.writeJsonFields(writer);
+    if (this.unit != null) {
+      writer.name(BatteryLevelSensorEvent.UNIT).value(this.unit.toString());
+    }
+    writer.name(BatteryLevelSensorEvent.BATTERY_LEVEL).value(this.level);
+  }
+
+  @Override
+  public double getMeasuredValue() {
+    return this.level;
+  }
+
+  @Override
+  public Enum< ?> getMeasuredUnit() {
+    return this.unit;
+  }
 }
\ No newline at end of file
@@ -3,10 +3,17 @@ package robo.model.event.sensor.electric;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import robo.comm.codec.JsonName;
+import robo.comm.codec.JsonWriter;
 import robo.model.MeasurementUnit;
+import robo.model.event.sensor.MeasurementEvent;
 import robo.model.sensor.electric.VoltageSensor;
 
-public class VoltageSensorEvent extends ElectricSensorEvent {
+public class VoltageSensorEvent extends ElectricSensorEvent
+    implements MeasurementEvent {
+  // the names of the JSON fields
+  private static final JsonName UNIT = new JsonName("unit");
+  private static final JsonName VOLTAGE = new JsonName("voltage");
   protected double voltage = 0.0;
   protected MeasurementUnit.Electric.Voltage unit = MeasurementUnit.Electric.Voltage.V;
 
@@ -21,10 +28,53 @@ public class VoltageSensorEvent extends ElectricSensorEvent {
     return this.voltage;
   }
 
+  public MeasurementUnit.Electric.Voltage getUnit() {
+    return this.unit;
+  }
+
+  /**
+   * Set the measurement unit (used when a pooled event is reused).
+   * 
+   * @param unit
+   *          the measurement unit of the voltage
+   */
+  public void setUnit(MeasurementUnit.Electric.Voltage unit) {
+    this.unit = unit;
+  }
+
+  /**
+   * Set the voltage (used when a pooled event is reused).
+   * 
+   * @param voltage
+   *          the voltage
+   */
+  public void setVoltage(double voltage) {
+    this.voltage = voltage;
+  }
+
   public JSONObject toJson() throws JSONException {
     JSONObject result = super.toJson();
     result.put("unit", this.unit);
     result.put("voltage", this.voltage);
     return result;
   }
+
+  @Override
+  public void writeJsonFields(JsonWriter writer) {
+    super.writeJsonFields(writer);
+    if (this.unit != null) {
+      writer.name(VoltageSensorEvent.UNIT).value(this.unit.toString());
+    }
+    writer.name(VoltageSensorEvent.VOLTAGE).value(this.voltage);
+  }
+
+  @Override
+  public double getMeasuredValue() {
+    return this.voltage;
+  }
+
+  @Override
+  public Enum< ?> getMeasuredUnit() {
+    return this.unit;
+  }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package robo.model.event.sensor.optical;
 
 import robo.model.MeasurementUnit;
+import robo.model.event.sensor.MeasurementEvent;
 import robo.model.sensor.optical.OpticalSensor;
 
 /**
@@ -12,7 +13,8 @@ import robo.model.sensor.optical.OpticalSensor;
  * @author mircea
  * 
  */
-public class PhotoResistorSensorEvent extends OpticalSensorEvent {
+public class PhotoResistorSensorEvent extends OpticalSensorEvent
+    implements MeasurementEvent {
   protected double resistance = -1L;
   // the light intensity value in LUX - only available for some cases, since
   // not all sensors are able to do such conversion!!!
@@ -36,11 +38,51 @@ public class PhotoResistorSensorEvent extends OpticalSensorEvent {
     return this.resistance;
   }
 
+  /**
+   * Set the resistance (used when a pooled event is reused).
+   * 
+   * @param resistance
+   *          the resistance
+   */
+  public void setResistance(double resistance) {
+    this.resistance = resistance;
+  }
+
   public double getLightIntensity() {
     return this.lightIntensity;
   }
 
+  /**
+   * Set the light intensity (used when a pooled event is reused).
+   * 
+   * @param lightIntensity
+   *          the light intensity in LUX, -1 if not available
+   */
+  public void setLightIntensity(double lightIntensity) {
+    this.lightIntensity = lightIntensity;
+  }
+
   public MeasurementUnit.Electric.Resistance getUnit() {
     return this.unit;
   }
+
+  /**
+   * Set the measurement unit (used when a pooled event is reused).
+   * 
+   * @param unit
+   *          the measurement unit of the resistance
+   */
+  public void setUnit(MeasurementUnit.Electric.Resistance unit) {
+    this.unit = unit;
+  }
+
+  @Override
+  public double getMeasuredValue() {
+    return this.resistance;
+  }
+
+  @Override
+  public Enum< ?> getMeasuredUnit() {
+    return this.unit;
+  }
 }
@@ -1,6 +1,7 @@
 package robo.model.event.sensor.proximity;
 
 import robo.model.MeasurementUnit;
+import robo.model.event.sensor.MeasurementEvent;
 import robo.model.sensor.proximity.DistanceSensor;
 
 /**
@@ -14,7 +15,8 @@ import robo.model.sensor.proximity.DistanceSensor;
  * @date April 8, 2014, 11:06:57 PM
  * 
  */
-public class DistanceSensorEvent extends ProximitySensorEvent {
+public class DistanceSensorEvent extends ProximitySensorEvent
+    implements MeasurementEvent {
   // the distance to the detected object(s)
   // NOTE: distance = -1 means that no object is in the range of the sensor.
   private double distance = -1L;
@@ -24,14 +26,45 @@ public class DistanceSensorEvent extends ProximitySensorEvent {
     return distance;
   }
 
+  /**
+   * Set the distance (used when a pooled event is reused).
+   * 
+   * @param distance
+   *          the distance to the detected object, -1 if no object is in the
+   *          range of the sensor
+   */
+  public void setDistance(double distance) {
+    this.distance = distance;
+  }
+
   public MeasurementUnit.Mechanic.Distance getUnit() {
     return unit;
   }
 
+  /**
+   * Set the measurement unit (used when a pooled event is reused).
+   * 
+   * @param unit
+   *          the measurement unit of the distance
+   */
+  public void setUnit(MeasurementUnit.Mechanic.Distance unit) {
+    this.unit = unit;
+  }
+
   public DistanceSensorEvent(DistanceSensor source, double distance,
       MeasurementUnit.Mechanic.Distance unit) {
     super(source);
     this.distance = distance;
     this.unit = unit;
   }
+
+  @Override
+  public double getMeasuredValue() {
+    return this.distance;
+  }
+
+  @Override
+  public Enum< ?> getMeasuredUnit() {
+    return this.unit;
+  }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package robo.model.event.sensor.weather;
 
 import robo.model.MeasurementUnit;
+import robo.model.event.sensor.MeasurementEvent;
 import robo.model.event.sensor.SensorEvent;
 import robo.model.sensor.weather.TemperatureSensor;
 
@@ -11,7 +12,8 @@ import robo.model.sensor.weather.TemperatureSensor;
  * @date May 15, 2014, 11:06:57 PM
  * 
  */
-public class TemperatureSensorEvent extends SensorEvent {
+public class TemperatureSensorEvent extends SensorEvent
+    implements MeasurementEvent {
   // temperature = -275 (below zero absolute) => no real value was read
   // (uninitialized value) from the sensor
   private double temperature = -275;
@@ -21,14 +23,44 @@ public class TemperatureSensorEvent extends SensorEvent {
     return temperature;
   }
 
+  /**
+   * Set the temperature (used when a pooled event is reused).
+   * 
+   * @param temperature
+   *          the temperature
+   */
+  public void setTemperature(double temperature) {
+    this.temperature = temperature;
+  }
+
   public MeasurementUnit.Thermic.Temperature getUnit() {
     return unit;
   }
 
+  /**
+   * Set the measurement unit (used when a pooled event is reused).
+   * 
+   * @param unit
+   *          the measurement unit of the temperature
+   */
+  public void setUnit(MeasurementUnit.Thermic.Temperature unit) {
+    this.unit = unit;
+  }
+
   public TemperatureSensorEvent(TemperatureSensor source, double temperature,
       MeasurementUnit.Thermic.Temperature unit) {
     super(source);
     this.temperature = temperature;
     this.unit = unit;
   }
+
+  @Override
+  public double getMeasuredValue() {
+    return this.temperature;
+  }
+
+  @Override
+  public Enum< ?> getMeasuredUnit() {
+    return this.unit;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package robo.model.match;
+
+import robo.model.event.Event;
+
+/**
+ * A fact of a match rule: the latest event of a given type, or a component
+ * whose state is checked. The fact keeps its latest value and the result of
+ * its pattern between the events, so a pattern is only evaluated again when
+ * its own fact changes.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 20:41:05
+ * 
+ * @param <T>
+ *          the type of the fact
+ */
+public class Fact< T> {
+  // the position of the fact in the match network
+  final int index;
+  // the pattern of the fact
+  private final Pattern< ? super T> pattern;
+  // flag showing that the fact is used by joins (so each new value has to be
+  // joined again, even if the result of the pattern did not change)
+  boolean joined = false;
+  // the latest value of the fact (null until the first value is known)
+  private T value = null;
+  // the result of the pattern for the latest value
+  private boolean matched = false;
+
+  Fact(int index, Pattern< ? super T> pattern) {
+    this.index = index;
+    this.pattern = pattern;
+  }
+
+  /**
+   * Get the latest value of the fact (e.g. the latest event of the fact
+   * type), even if it does not match the pattern.
+   * 
+   * @return the latest value, or null if no value is known yet
+   */
+  public T get() {
+    return this.value;
+  }
+
+  /**
+   * Check if the latest value of the fact matches its pattern.
+   * 
+   * @return true if the latest value matches the pattern, false otherwise
+   */
+  public boolean isMatched() {
+    return this.matched;
+  }
+
+  /**
+   * Helper method used to set a new value and to evaluate the pattern for it.
+   * 
+   * @param value
+   *          the new value
+   * @return true if the result of the pattern changed, false otherwise
+   */
+  boolean update(T value) {
+    boolean matched = this.pattern.matches(value);
+    // the latest event is kept after its processing ends, so a pooled event
+    // must not be recycled until it is replaced
+    if (value instanceof Event) {
+      ((Event< ?>) value).retain();
+    }
+    if (this.value instanceof Event) {
+      ((Event< ?>) this.value).release();
+    }
+    this.value = value;
+    if (matched == this.matched) {
+      return false;
+    }
+    this.matched = matched;
+    return true;
+  }
+}
@@ -0,0 +1,27 @@
+package robo.model.match;
+
+/**
+ * A condition relating two facts of a match rule (e.g. "the two distance
+ * readings differ by less than 5 cm"). A join is only evaluated when both
+ * facts match their patterns, and only when one of them changed.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 20:41:05
+ * 
+ * @param <A>
+ *          the type of the first fact
+ * @param <B>
+ *          the type of the second fact
+ */
+public interface Join< A, B> {
+  /**
+   * Check if two facts satisfy this join.
+   * 
+   * @param first
+   *          the first fact (never null)
+   * @param second
+   *          the second fact (never null)
+   * @return true if the facts satisfy the join, false otherwise
+   */
+  public boolean test(A first, B second);
+}
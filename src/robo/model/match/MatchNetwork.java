@@ -0,0 +1,339 @@
+package robo.model.match;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import robo.model.event.Event;
+
+/**
+ * The incremental match network of a match rule, built as a chain of joins
+ * over the facts of the rule (in the order they were declared):
+ * 
+ * - the alpha level: each fact keeps its latest value and the result of its
+ * pattern. An event only updates the facts of its type (or supertypes), and
+ * the state facts of its source component, found through indexes computed
+ * once for each event type and source;
+ * 
+ * - the beta level: for each fact position, the partial match of all the
+ * facts up to that position (their patterns, together with the joins between
+ * them) is kept between the events. When facts change, only the partial
+ * matches starting with the first changed position are evaluated again, and
+ * the evaluation stops as soon as a partial match is not changed and no
+ * other fact changed after it.
+ * 
+ * NOTE: the network is only used by the agent cycle, so it is not thread
+ * safe.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 20:41:05
+ * 
+ */
+class MatchNetwork {
+  // the positions of no facts
+  private static final int[] NO_FACTS = new int[0];
+  // the facts, in the order they were declared
+  private final List< Fact< ?>> facts = new ArrayList< Fact< ?>>();
+  // the event type of each event fact (null for the state facts)
+  private final List< Class< ?>> eventTypes = new ArrayList< Class< ?>>();
+  // the source of each fact (the component for the state facts, null for the
+  // event facts accepting any source)
+  private final List< Object> sources = new ArrayList< Object>();
+  // the joins to be checked at each position (the position of their last
+  // fact)
+  private final List< List< JoinNode< ?, ?>>> joins = new ArrayList< List< JoinNode< ?, ?>>>();
+  // the positions of the event facts, resolved for each concrete event type
+  private final Map< Class< ?>, int[]> eventFactsByType = new HashMap< Class< ?>, int[]>();
+  // the positions of the state facts, for each component
+  private final Map< Object, int[]> stateFactsBySource = new IdentityHashMap< Object, int[]>();
+  // the partial match of each position
+  private boolean[] partialMatches = new boolean[0];
+  // flag showing that the state facts were evaluated the first time
+  private boolean started = false;
+
+  /**
+   * Add a fact for the events of a given type (and subtypes).
+   * 
+   * @param eventType
+   *          the event type
+   * @param source
+   *          the source of the events, or null for any source
+   * @param pattern
+   *          the pattern checked for each event
+   * @return the fact
+   */
+  < E extends Event< ?>> Fact< E> addEventFact(Class< E> eventType,
+      Object source, Pattern< ? super E> pattern) {
+    Fact< E> fact = new Fact< E>(this.facts.size(), pattern);
+    this.add(fact, eventType, source);
+    return fact;
+  }
+
+  /**
+   * Add a fact for the state of a component. The pattern is checked each time
+   * the component is the source of an event.
+   * 
+   * @param component
+   *          the component
+   * @param pattern
+   *          the pattern checked for the component state
+   * @return the fact
+   */
+  < C> Fact< C> addStateFact(C component, Pattern< ? super C> pattern) {
+    Fact< C> fact = new Fact< C>(this.facts.size(), pattern);
+    this.add(fact, null, component);
+    List< Integer> positions = new ArrayList< Integer>();
+    for (int i = 0; i < this.facts.size(); i++) {
+      if (this.eventTypes.get(i) == null && this.sources.get(i) == component) {
+        positions.add(i);
+      }
+    }
+    this.stateFactsBySource.put(component, MatchNetwork.toArray(positions));
+    return fact;
+  }
+
+  /**
+   * Add a join between two facts.
+   * 
+   * @param first
+   *          the first fact
+   * @param second
+   *          the second fact
+   * @param join
+   *          the join condition
+   */
+  < A, B> void addJoin(Fact< A> first, Fact< B> second,
+      Join< ? super A, ? super B> join) {
+    int position = Math.max(first.index, second.index);
+    first.joined = true;
+    second.joined = true;
+    this.joins.get(position).add(new JoinNode< A, B>(first, second, join));
+  }
+
+  /**
+   * Check if there are no facts.
+   * 
+   * @return true if no fact was declared, false otherwise
+   */
+  boolean isEmpty() {
+    return this.facts.isEmpty();
+  }
+
+  /**
+   * Check if all the facts match their patterns and all the joins hold.
+   * 
+   * @return true if the network matches, false otherwise
+   */
+  boolean isMatched() {
+    int n = this.partialMatches.length;
+    return n > 0 && this.partialMatches[n - 1];
+  }
+
+  /**
+   * Update the facts for a new event and evaluate again the affected partial
+   * matches.
+   * 
+   * @param event
+   *          the event
+   * @return true if the event updated any fact, false otherwise
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  boolean update(Event< ?> event) {
+    boolean updated = false;
+    int firstChanged = Integer.MAX_VALUE;
+    int lastChanged = -1;
+    if (!this.started) {
+      // the state facts are evaluated once before the first event, so their
+      // initial state is known
+      this.started = true;
+      for (int i = 0; i < this.facts.size(); i++) {
+        if (this.eventTypes.get(i) == null) {
+          ((Fact) this.facts.get(i)).update(this.sources.get(i));
+          firstChanged = Math.min(firstChanged, i);
+          lastChanged = i;
+        }
+      }
+    }
+    int[] eventFacts = this.getEventFacts(event.getClass());
+    Object source = event.getSource();
+    for (int i = 0; i < eventFacts.length; i++) {
+      int position = eventFacts[i];
+      Object factSource = this.sources.get(position);
+      if (factSource != null && factSource != source) {
+        continue;
+      }
+      updated = true;
+      if (this.onFactUpdate(position, event)) {
+        firstChanged = Math.min(firstChanged, position);
+        lastChanged = Math.max(lastChanged, position);
+      }
+    }
+    int[] stateFacts = source != null ? this.stateFactsBySource.get(source)
+        : null;
+    if (stateFacts != null) {
+      updated = true;
+      for (int i = 0; i < stateFacts.length; i++) {
+        int position = stateFacts[i];
+        if (this.onFactUpdate(position, source)) {
+          firstChanged = Math.min(firstChanged, position);
+          lastChanged = Math.max(lastChanged, position);
+        }
+      }
+    }
+    if (lastChanged >= 0) {
+      this.evaluate(firstChanged, lastChanged);
+    }
+    return updated;
+  }
+
+  /**
+   * Helper method used to add a fact.
+   * 
+   * @param fact
+   *          the fact
+   * @param eventType
+   *          the event type, null for state facts
+   * @param source
+   *          the source of the fact
+   */
+  private void add(Fact< ?> fact, Class< ?> eventType, Object source) {
+    this.facts.add(fact);
+    this.eventTypes.add(eventType);
+    this.sources.add(source);
+    this.joins.add(new ArrayList< JoinNode< ?, ?>>(1));
+    this.partialMatches = new boolean[this.facts.size()];
+    this.eventFactsByType.clear();
+  }
+
+  /**
+   * Helper method used to update a fact.
+   * 
+   * @param position
+   *          the position of the fact
+   * @param value
+   *          the new value
+   * @return true if the partial matches have to be evaluated again, false
+   *         otherwise (the fact has no joins and the result of its pattern
+   *         did not change)
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private boolean onFactUpdate(int position, Object value) {
+    Fact fact = this.facts.get(position);
+    return fact.update(value) || fact.joined;
+  }
+
+  /**
+   * Helper method used to evaluate again the partial matches affected by the
+   * changed facts.
+   * 
+   * @param firstChanged
+   *          the position of the first changed fact
+   * @param lastChanged
+   *          the position of the last changed fact
+   */
+  private void evaluate(int firstChanged, int lastChanged) {
+    for (int i = firstChanged; i < this.partialMatches.length; i++) {
+      boolean matched = (i == 0 || this.partialMatches[i - 1])
+          && this.facts.get(i).isMatched() && this.checkJoins(i);
+      if (matched == this.partialMatches[i] && i >= lastChanged) {
+        // the next partial matches depend only on unchanged facts
+        return;
+      }
+      this.partialMatches[i] = matched;
+    }
+  }
+
+  /**
+   * Helper method used to check the joins of a position.
+   * 
+   * @param position
+   *          the position
+   * @return true if all the joins hold, false otherwise
+   */
+  private boolean checkJoins(int position) {
+    List< JoinNode< ?, ?>> positionJoins = this.joins.get(position);
+    for (int i = 0, n = positionJoins.size(); i < n; i++) {
+      if (!positionJoins.get(i).test()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Helper method used to get the positions of the event facts matching a
+   * concrete event type.
+   * 
+   * @param eventType
+   *          the concrete event type
+   * @return the positions of the facts
+   */
+  private int[] getEventFacts(Class< ?> eventType) {
+    int[] positions = this.eventFactsByType.get(eventType);
+    if (positions == null) {
+      List< Integer> matching = new ArrayList< Integer>();
+      for (int i = 0; i < this.facts.size(); i++) {
+        Class< ?> factType = this.eventTypes.get(i);
+        if (factType != null && factType.isAssignableFrom(eventType)) {
+          matching.add(i);
+        }
+      }
+      positions = MatchNetwork.toArray(matching);
+      this.eventFactsByType.put(eventType, positions);
+    }
+    return positions;
+  }
+
+  /**
+   * Helper method used to convert a list of positions to an array.
+   * 
+   * @param positions
+   *          the positions
+   * @return the array of positions
+   */
+  private static int[] toArray(List< Integer> positions) {
+    if (positions.isEmpty()) {
+      return MatchNetwork.NO_FACTS;
+    }
+    int[] result = new int[positions.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = positions.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * A join between two facts.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 20:41:05
+   * 
+   */
+  private static class JoinNode< A, B> {
+    // the first fact
+    private final Fact< A> first;
+    // the second fact
+    private final Fact< B> second;
+    // the join condition
+    private final Join< ? super A, ? super B> join;
+
+    private JoinNode(Fact< A> first, Fact< B> second,
+        Join< ? super A, ? super B> join) {
+      this.first = first;
+      this.second = second;
+      this.join = join;
+    }
+
+    /**
+     * Check the join for the current values of the facts (which both match
+     * their patterns).
+     * 
+     * @return true if the join holds, false otherwise
+     */
+    private boolean test() {
+      return this.join.test(this.first.get(), this.second.get());
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package robo.model.match;
+
+import java.util.List;
+
+import robo.model.PhysicalAgent;
+import robo.model.Rule;
+import robo.model.event.Event;
+
+/**
+ * A rule whose condition is a conjunction of patterns over events and
+ * component states, e.g. "the distance is less than 20 cm AND the relay is
+ * disabled AND the battery is above 30%". The patterns (and the joins between
+ * them) are declared in the constructor or in <code>initialize</code>, by
+ * using <code>addEventPattern</code>, <code>addStatePattern</code> and
+ * <code>addJoin</code>, instead of implementing <code>checkCondition</code>.
+ * 
+ * The rule is triggered by all the events of the agent, but it keeps the
+ * facts and the partial matches between the events in an incremental match
+ * network, so each event only evaluates the patterns of its own type (or of
+ * its source component) and the joins depending on the changed facts. The
+ * actions are executed when the condition changes:
+ * <code>executeThenActions</code> when all the patterns become matched (or
+ * for each event changing a fact while they are matched, if the rule is not
+ * edge triggered), and <code>executeElseActions</code> when the patterns are
+ * no longer matched. The latest values of the facts can be read in the
+ * actions through the <code>Fact</code> instances returned when declaring
+ * the patterns.
+ * 
+ * NOTE: a state pattern is checked when its component is the source of an
+ * event received by the agent (and once, before the first event), so the
+ * component must notify its state changes (e.g. as a relay does with the
+ * <code>RelayEnabledEvent</code> and <code>RelayDisabledEvent</code>).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 20:41:05
+ * 
+ * @param <AgentRefType>
+ *          the type of the agent that contains this rule
+ */
+public abstract class MatchRule< AgentRefType extends PhysicalAgent> extends
+    Rule< AgentRefType, Event< ? extends PhysicalAgent>> {
+  // the match network of the rule
+  private final MatchNetwork network = new MatchNetwork();
+  // flag showing that the network received events (and no patterns can be
+  // added anymore)
+  private boolean matching = false;
+
+  /**
+   * Declare a pattern over the events of a given type (and of its subtypes).
+   * 
+   * @param eventType
+   *          the event type
+   * @param pattern
+   *          the pattern, checked for each event of the given type
+   * @return the fact holding the latest event of the given type
+   */
+  protected < E extends Event< ?>> Fact< E> addEventPattern(
+      Class< E> eventType, Pattern< ? super E> pattern) {
+    return this.addEventPattern(eventType, null, pattern);
+  }
+
+  /**
+   * Declare a pattern over the events of a given type (and of its subtypes)
+   * coming from a given source.
+   * 
+   * @param eventType
+   *          the event type
+   * @param source
+   *          the source of the events (e.g. a sensor), or null for any source
+   * @param pattern
+   *          the pattern, checked for each event of the given type
+   * @return the fact holding the latest event of the given type
+   */
+  protected < E extends Event< ?>> Fact< E> addEventPattern(
+      Class< E> eventType, Object source, Pattern< ? super E> pattern) {
+    if (eventType == null || pattern == null) {
+      throw new IllegalArgumentException(
+          "The event type and the pattern can't be null when calling MatchRule.addEventPattern(eventType, source, pattern)!");
+    }
+    this.checkNotMatching();
+    return this.network.addEventFact(eventType, source, pattern);
+  }
+
+  /**
+   * Declare a pattern over the state of a component.
+   * 
+   * @param component
+   *          the component
+   * @param pattern
+   *          the pattern, checked each time the component is the source of
+   *          an event
+   * @return the fact holding the component
+   */
+  protected < C> Fact< C> addStatePattern(C component,
+      Pattern< ? super C> pattern) {
+    if (component == null || pattern == null) {
+      throw new IllegalArgumentException(
+          "The component and the pattern can't be null when calling MatchRule.addStatePattern(component, pattern)!");
+    }
+    this.checkNotMatching();
+    return this.network.addStateFact(component, pattern);
+  }
+
+  /**
+   * Declare a join between two facts of this rule.
+   * 
+   * @param first
+   *          the first fact
+   * @param second
+   *          the second fact
+   * @param join
+   *          the join condition, checked when both facts match their
+   *          patterns and one of them changed
+   */
+  protected < A, B> void addJoin(Fact< A> first, Fact< B> second,
+      Join< ? super A, ? super B> join) {
+    if (first == null || second == null || join == null) {
+      throw new IllegalArgumentException(
+          "The facts and the join can't be null when calling MatchRule.addJoin(first, second, join)!");
+    }
+    this.checkNotMatching();
+    this.network.addJoin(first, second, join);
+  }
+
+  /**
+   * Check if the actions are only executed when the patterns become matched
+   * (true), or for each event changing a fact while they are matched (false).
+   * By default the rule is edge triggered.
+   * 
+   * @return true if the rule is edge triggered, false otherwise
+   */
+  protected boolean isEdgeTriggered() {
+    return true;
+  }
+
+  /**
+   * The condition of a match rule is given by its patterns and joins.
+   * 
+   * @return true if all the patterns are matched and all the joins hold
+   */
+  @Override
+  protected final boolean checkCondition() {
+    return this.network.isMatched();
+  }
+
+  @Override
+  protected List< Event< ?>> execute() {
+    if (this.network.isEmpty()) {
+      return null;
+    }
+    this.matching = true;
+    boolean wasMatched = this.network.isMatched();
+    if (!this.network.update(this.triggeringEvent)) {
+      return null;
+    }
+    boolean matched = this.network.isMatched();
+    if (matched && (!wasMatched || !this.isEdgeTriggered())) {
+      return this.executeThenActions();
+    } else if (!matched && wasMatched) {
+      return this.executeElseActions();
+    }
+    return null;
+  }
+
+  /**
+   * Helper method used to check that the network did not receive events yet.
+   */
+  private void checkNotMatching() {
+    if (this.matching) {
+      throw new IllegalStateException(
+          "The patterns can't be changed after the rule received events when calling MatchRule.add...()!");
+    }
+  }
+}
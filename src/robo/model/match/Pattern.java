@@ -0,0 +1,23 @@
+package robo.model.match;
+
+/**
+ * A condition over a single fact of a match rule: an event (e.g. "the
+ * distance is less than 20 cm") or the state of a component (e.g. "the relay
+ * is disabled").
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 20:41:05
+ * 
+ * @param <T>
+ *          the type of the fact
+ */
+public interface Pattern< T> {
+  /**
+   * Check if a fact matches this pattern.
+   * 
+   * @param fact
+   *          the fact (never null)
+   * @return true if the fact matches the pattern, false otherwise
+   */
+  public boolean matches(T fact);
+}
@@ -0,0 +1,318 @@
+package robo.model.sensor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import robo.logger.DefaultLogger;
+import robo.runtime.Clock;
+
+/**
+ * Scheduler which wakes up the periodic sensors when their readings are due.
+ * All the sensors using the same scheduler share a single timer thread, which
+ * only wakes them up, while the readings themselves are executed by the
+ * runtime of each sensor (so, with a <code>PooledAgentRuntime</code>, any
+ * number of sensors share a few threads).
+ * 
+ * The timers are kept in a hierarchical timer wheel (4 levels of 64 slots),
+ * so adding, firing and cancelling a timer takes constant time no matter how
+ * many sensors are used. The wheel advances in ticks, and all the timers due
+ * in the same tick fire together, so the tick duration is also the window
+ * used to coalesce timers that fire close together.
+ * 
+ * The readings are drift-compensated: the next reading of a sensor is
+ * scheduled one period after the previous scheduled time (not after the time
+ * when the previous reading was executed). If a sensor falls behind with more
+ * than one period, the missed readings are skipped (and counted).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 18:41:27
+ * 
+ */
+public class SamplingScheduler implements Runnable {
+  // the number of bits used for the slot index of each level
+  private static final int SLOT_BITS = 6;
+  // the number of slots of each level
+  private static final int SLOTS = 1 << SamplingScheduler.SLOT_BITS;
+  // the number of levels of the wheel
+  private static final int LEVELS = 4;
+  // the scheduler used by the sensors which does not have their own scheduler
+  private static SamplingScheduler defaultScheduler = null;
+  // the duration of a tick, in nanoseconds
+  private final long tickDuration;
+  // the slots of the wheel levels, indexed by level * SLOTS + slot
+  private final List< List< SamplingTask>> slots;
+  // the tasks which have to be added to the wheel by the timer thread
+  private final Queue< SamplingTask> newTasks = new ConcurrentLinkedQueue< SamplingTask>();
+  // the time (clock nanoTime) of the tick 0
+  private final long startTime;
+  // the current tick (only used by the timer thread)
+  private long currentTick = 0;
+  // the number of tasks in the wheel (only used by the timer thread)
+  private int tasksCount = 0;
+  // the timer thread
+  private final Thread thread;
+  // flag used to stop the timer thread
+  private volatile boolean running = true;
+
+  /**
+   * Get the default scheduler. The scheduler is created the first time this
+   * method is called, with a tick duration of one millisecond.
+   * 
+   * @return the default scheduler
+   */
+  public static synchronized SamplingScheduler getDefaultScheduler() {
+    if (SamplingScheduler.defaultScheduler == null) {
+      SamplingScheduler.defaultScheduler = new SamplingScheduler();
+    }
+    return SamplingScheduler.defaultScheduler;
+  }
+
+  /**
+   * Create a scheduler with a tick duration of one millisecond.
+   */
+  public SamplingScheduler() {
+    this(1, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Create a scheduler with a given tick duration. The timers due in the same
+   * tick fire together.
+   * 
+   * @param tickDuration
+   *          the duration of a tick
+   * @param unit
+   *          the time unit of the tick duration
+   */
+  public SamplingScheduler(long tickDuration, TimeUnit unit) {
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException(
+          "The tick duration must be greater than zero when calling new SamplingScheduler(tickDuration, unit)!");
+    }
+    this.tickDuration = unit.toNanos(tickDuration);
+    this.slots = new ArrayList< List< SamplingTask>>(SamplingScheduler.LEVELS
+        * SamplingScheduler.SLOTS);
+    for (int i = 0; i < SamplingScheduler.LEVELS * SamplingScheduler.SLOTS; i++) {
+      this.slots.add(new ArrayList< SamplingTask>(1));
+    }
+    this.startTime = Clock.getClock().nanoTime();
+    this.thread = new Thread(this, "robo-sampling-scheduler");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Get the duration of a tick.
+   * 
+   * @return the tick duration, in nanoseconds
+   */
+  public long getTickDuration() {
+    return this.tickDuration;
+  }
+
+  /**
+   * Schedule the periodic readings of a sensor. The first reading is due one
+   * period from now.
+   * 
+   * @param sensor
+   *          the sensor
+   * @param period
+   *          the time between two readings, in nanoseconds
+   * @return the task used to cancel the readings
+   */
+  SamplingTask schedule(Sensor sensor, long period) {
+    SamplingTask task = new SamplingTask(sensor, period,
+        Clock.getClock().nanoTime() + period);
+    this.newTasks.add(task);
+    LockSupport.unpark(this.thread);
+    return task;
+  }
+
+  /**
+   * Stop the timer thread. The sensors using this scheduler are no longer
+   * woken up.
+   */
+  public void shutdown() {
+    this.running = false;
+    LockSupport.unpark(this.thread);
+  }
+
+  @Override
+  public void run() {
+    while (this.running) {
+      try {
+        this.addNewTasks();
+        long now = Clock.getClock().nanoTime();
+        long nowTick = (now - this.startTime) / this.tickDuration;
+        while (this.currentTick < nowTick) {
+          this.advance();
+        }
+        if (this.tasksCount == 0) {
+          LockSupport.park(this);
+        } else {
+          // the empty ticks are skipped, instead of waking up for each tick
+          LockSupport.parkNanos(this, this.startTime
+              + (this.currentTick + this.getTicksToNextWork())
+              * this.tickDuration - now);
+        }
+      } catch (Exception e) {
+        DefaultLogger.getLogger().error(this.getClass().getSimpleName(), e);
+      }
+    }
+  }
+
+  /**
+   * Helper method used to add the new tasks to the wheel (only used by the
+   * timer thread).
+   */
+  private void addNewTasks() {
+    SamplingTask task = null;
+    while ((task = this.newTasks.poll()) != null) {
+      this.add(task);
+    }
+  }
+
+  /**
+   * Helper method used to compute the number of ticks until the next tick
+   * which has tasks to fire or slots to cascade (only used by the timer
+   * thread).
+   * 
+   * @return the number of ticks until the next tick with work to do
+   */
+  private int getTicksToNextWork() {
+    int slot = (int) this.currentTick & (SamplingScheduler.SLOTS - 1);
+    for (int ticks = 1; slot + ticks < SamplingScheduler.SLOTS; ticks++) {
+      if (!this.slots.get(slot + ticks).isEmpty()) {
+        return ticks;
+      }
+    }
+    // the level 0 wraps, so the higher levels may have to be cascaded
+    return SamplingScheduler.SLOTS - slot;
+  }
+
+  /**
+   * Helper method used to add a task to the level and slot corresponding to
+   * its due time (only used by the timer thread).
+   * 
+   * @param task
+   *          the task to add
+   */
+  private void add(SamplingTask task) {
+    if (task.cancelled) {
+      return;
+    }
+    long dueTick = (task.dueTime - this.startTime + this.tickDuration - 1)
+        / this.tickDuration;
+    long ticks = dueTick - this.currentTick;
+    if (ticks <= 0) {
+      this.fire(task);
+      return;
+    }
+    int level = 0;
+    while (level < SamplingScheduler.LEVELS - 1
+        && ticks >= 1L << (SamplingScheduler.SLOT_BITS * (level + 1))) {
+      level++;
+    }
+    int slot = (int) (dueTick >>> (SamplingScheduler.SLOT_BITS * level))
+        & (SamplingScheduler.SLOTS - 1);
+    this.slots.get(level * SamplingScheduler.SLOTS + slot).add(task);
+    this.tasksCount++;
+  }
+
+  /**
+   * Helper method used to advance the wheel with one tick: the slots of the
+   * higher levels reached by the new tick are moved to the lower levels, then
+   * the tasks of the new tick are fired (only used by the timer thread).
+   */
+  private void advance() {
+    this.currentTick++;
+    for (int level = SamplingScheduler.LEVELS - 1; level > 0; level--) {
+      int shift = SamplingScheduler.SLOT_BITS * level;
+      if ((this.currentTick & ((1L << shift) - 1)) == 0) {
+        int slot = (int) (this.currentTick >>> shift)
+            & (SamplingScheduler.SLOTS - 1);
+        this.cascade(this.slots.get(level * SamplingScheduler.SLOTS + slot));
+      }
+    }
+    List< SamplingTask> dueTasks = this.slots.get((int) this.currentTick
+        & (SamplingScheduler.SLOTS - 1));
+    if (!dueTasks.isEmpty()) {
+      this.cascade(dueTasks);
+    }
+  }
+
+  /**
+   * Helper method used to re-add all the tasks of a slot, which are then
+   * either moved to a lower level or fired (only used by the timer thread).
+   * 
+   * @param tasks
+   *          the tasks of the slot
+   */
+  private void cascade(List< SamplingTask> tasks) {
+    if (tasks.isEmpty()) {
+      return;
+    }
+    SamplingTask[] moved = tasks.toArray(new SamplingTask[tasks.size()]);
+    tasks.clear();
+    this.tasksCount -= moved.length;
+    for (SamplingTask task : moved) {
+      this.add(task);
+    }
+  }
+
+  /**
+   * Helper method used to wake up the sensor of a due task and to schedule its
+   * next reading (only used by the timer thread).
+   * 
+   * @param task
+   *          the due task
+   */
+  private void fire(SamplingTask task) {
+    task.sensor.onSamplingDue(task.dueTime);
+    long nextDueTime = task.dueTime + task.period;
+    long now = Clock.getClock().nanoTime();
+    if (nextDueTime <= now) {
+      // the readings that can no longer be done in time are skipped
+      long missed = (now - nextDueTime) / task.period + 1;
+      task.sensor.onSamplesMissed(missed);
+      nextDueTime += missed * task.period;
+    }
+    task.dueTime = nextDueTime;
+    this.add(task);
+  }
+
+  /**
+   * The periodic readings of a sensor.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 18:41:27
+   * 
+   */
+  static class SamplingTask {
+    // the sensor to wake up
+    private final Sensor sensor;
+    // the time between two readings, in nanoseconds
+    private final long period;
+    // the time (clock nanoTime) of the next reading (only used by the timer
+    // thread, after the task was added)
+    private long dueTime;
+    // flag showing that the readings were cancelled
+    private volatile boolean cancelled = false;
+
+    private SamplingTask(Sensor sensor, long period, long dueTime) {
+      this.sensor = sensor;
+      this.period = period;
+      this.dueTime = dueTime;
+    }
+
+    /**
+     * Cancel the readings. The task is removed from the wheel when it is due.
+     */
+    void cancel() {
+      this.cancelled = true;
+    }
+  }
+}
@@ -1,12 +1,25 @@
 package robo.model.sensor;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+import robo.model.CycleMode;
 import robo.model.WoTComponent;
+import robo.runtime.Clock;
 
 /**
  * The super class of any Sensor device, no matter if it is a real hardware) one
  * or a simulated one. Every real/simulated sensor implements this class of one
  * of its specialized subclasses.
  * 
+ * The periodic readings (i.e. a positive <code>periodicity</code>) are driven
+ * by a <code>SamplingScheduler</code>, which wakes up the sensor when each
+ * reading is due, and the readings are executed in the sensor cycles (e.g. in
+ * <code>onCycleStarts</code>). The sensor also reports how late the readings
+ * were versus their schedule. When the agents use a virtual clock (e.g. in a
+ * simulation), the readings are driven by the sensor cycle period instead.
+ * The specialized sensors trigger their readings with events taken from a
+ * pool of the sensor (see <code>EventPool</code>).
+ * 
  * @author Mircea Diaconescu
  * @date Apr 8, 2014, 11:06:57 
  * 
@@ -25,6 +38,23 @@ public abstract class Sensor extends WoTComponent {
   // which will just add execution time without real reasons.
   // The default value is 1000ms to result in a periodicity of 1Hz.
   protected long delay = 1000;
+  // the scheduler driving the periodic readings (null means the default one)
+  private volatile SamplingScheduler samplingScheduler = null;
+  // the periodic readings task, null if the readings are not scheduled
+  private SamplingScheduler.SamplingTask samplingTask = null;
+  // the scheduled time (clock nanoTime) of the reading which is due, -1 if no
+  // reading is due
+  private final AtomicLong dueSampleTime = new AtomicLong(-1);
+  // flag showing that the current cycle executes a scheduled reading
+  private volatile boolean samplingCycle = false;
+  // the number of scheduled readings executed since the sensor started
+  private volatile long samplesCount = 0;
+  // the number of scheduled readings skipped because the sensor fell behind
+  private final AtomicLong missedSamplesCount = new AtomicLong(0);
+  // the sum of the delays (in nanoseconds) of the scheduled readings
+  private volatile long totalSamplingLateness = 0;
+  // the maximum delay (in nanoseconds) of a scheduled reading
+  private volatile long maxSamplingLateness = 0;
 
   /**
    * Create a sensor instance for a specific given name.
@@ -34,6 +64,7 @@ public abstract class Sensor extends WoTComponent {
   public Sensor(String name) {
     super(name);
     Sensor.CURRENT_NUMBER_OF_SENSORS++;
+    this.updateCycle();
   }
 
   /**
@@ -69,6 +100,7 @@ public abstract class Sensor extends WoTComponent {
     if (sensorMode == SensorMode.AUTO || sensorMode == SensorMode.ON_REQUEST) {
       this.sensorMode = sensorMode;
       this.periodicity = 0;
+      this.updateCycle();
     } else {
       throw new IllegalArgumentException(
           "Only SensorMode.AUTO and SensorMode.ON_REQUEST values are allowed "
@@ -114,6 +146,7 @@ public abstract class Sensor extends WoTComponent {
       } else {
         this.sensorMode = sensorMode;
         this.periodicity = 0;
+        this.updateCycle();
       }
     } else {
       if (sensorMode == SensorMode.ON_REQUEST) {
@@ -165,6 +198,7 @@ public abstract class Sensor extends WoTComponent {
             "The sensor is in SensorMode.PERIODIC mode, periodicity must be values greather than 0!");
       } else {
         this.periodicity = 0;
+        this.updateCycle();
       }
     } else {
       if (sensorMode == SensorMode.ON_REQUEST) {
@@ -173,7 +207,195 @@ public abstract class Sensor extends WoTComponent {
       } else {
         this.periodicity = periodicity;
         this.delay = (long) (1000 / periodicity);
+        this.updateCycle();
       }
     }
   }
+
+  /**
+   * Get the scheduler driving the periodic readings of this sensor.
+   * 
+   * @return the sampling scheduler (if none was set, the default scheduler)
+   */
+  public SamplingScheduler getSamplingScheduler() {
+    SamplingScheduler samplingScheduler = this.samplingScheduler;
+    return samplingScheduler != null ? samplingScheduler : SamplingScheduler
+        .getDefaultScheduler();
+  }
+
+  /**
+   * Set the scheduler driving the periodic readings of this sensor. This must
+   * be called before the sensor is started.
+   * 
+   * @param samplingScheduler
+   *          the sampling scheduler (null means the default scheduler)
+   */
+  public void setSamplingScheduler(SamplingScheduler samplingScheduler) {
+    this.samplingScheduler = samplingScheduler;
+  }
+
+  /**
+   * Check if the current cycle was started by the sampling scheduler, i.e. a
+   * periodic reading is due. Sensor implementations can use this to execute
+   * the readings only when they are due, and not in the cycles started by the
+   * incoming events.
+   * 
+   * @return true if a periodic reading is due in the current cycle, false
+   *         otherwise
+   */
+  protected boolean isSamplingCycle() {
+    return this.samplingCycle;
+  }
+
+  /**
+   * Get the number of scheduled readings executed since the sensor started.
+   * 
+   * @return the number of scheduled readings
+   */
+  public long getSamplesCount() {
+    return this.samplesCount;
+  }
+
+  /**
+   * Get the number of scheduled readings that were skipped because the
+   * sensor fell behind with more than one period.
+   * 
+   * @return the number of missed readings
+   */
+  public long getMissedSamplesCount() {
+    return this.missedSamplesCount.get();
+  }
+
+  /**
+   * Get the average delay of the scheduled readings versus their schedule.
+   * 
+   * @return the average delay, in nanoseconds
+   */
+  public double getAverageSamplingLateness() {
+    long samplesCount = this.samplesCount;
+    return samplesCount > 0 ? (double) this.totalSamplingLateness
+        / samplesCount : 0;
+  }
+
+  /**
+   * Get the maximum delay of a scheduled reading versus its schedule.
+   * 
+   * @return the maximum delay, in nanoseconds
+   */
+  public long getMaxSamplingLateness() {
+    return this.maxSamplingLateness;
+  }
+
+  @Override
+  public boolean runStartUp() {
+    if (!super.runStartUp()) {
+      return false;
+    }
+    this.updateSampling();
+    return true;
+  }
+
+  @Override
+  public void runCycle() throws Exception {
+    long dueTime = this.dueSampleTime.getAndSet(-1);
+    this.samplingCycle = dueTime >= 0;
+    if (this.samplingCycle) {
+      long lateness = Math.max(0, Clock.getClock().nanoTime() - dueTime);
+      this.samplesCount++;
+      this.totalSamplingLateness += lateness;
+      if (lateness > this.maxSamplingLateness) {
+        this.maxSamplingLateness = lateness;
+      }
+    }
+    super.runCycle();
+  }
+
+  @Override
+  public void runShutDown() {
+    this.cancelSampling();
+    super.runShutDown();
+  }
+
+  @Override
+  public void onFatalError(Exception e) {
+    this.cancelSampling();
+    super.onFatalError(e);
+  }
+
+  /**
+   * Called by the sampling scheduler when a periodic reading is due.
+   * 
+   * @param dueTime
+   *          the scheduled time (clock nanoTime) of the reading
+   */
+  void onSamplingDue(long dueTime) {
+    // if the previous reading was not yet executed, then it is now missed
+    if (this.dueSampleTime.getAndSet(dueTime) >= 0) {
+      this.missedSamplesCount.incrementAndGet();
+    }
+    this.wakeUp();
+  }
+
+  /**
+   * Called by the sampling scheduler when periodic readings were skipped
+   * because the sensor fell behind.
+   * 
+   * @param count
+   *          the number of skipped readings
+   */
+  void onSamplesMissed(long count) {
+    this.missedSamplesCount.addAndGet(count);
+  }
+
+  /**
+   * Helper method used to (re)schedule the periodic readings after the sensor
+   * started or its periodicity changed.
+   */
+  private synchronized void updateSampling() {
+    this.cancelSampling();
+    if (!this.isRunning() || this.periodicity <= 0
+        || Clock.getClock() != Clock.SYSTEM) {
+      return;
+    }
+    // the scheduler wakes up the sensor, so no cycle period is needed
+    this.setCyclePeriod(0);
+    this.samplingTask = this.getSamplingScheduler().schedule(this,
+        this.delay * 1000000L);
+  }
+
+  /**
+   * Helper method used to cancel the scheduled periodic readings.
+   */
+  private synchronized void cancelSampling() {
+    if (this.samplingTask != null) {
+      this.samplingTask.cancel();
+      this.samplingTask = null;
+      this.dueSampleTime.set(-1);
+    }
+  }
+
+  /**
+   * Helper method used to keep the agent cycles in sync with the sensor mode:
+   * a sensor with a positive periodicity is woken up every <code>delay</code>
+   * milliseconds, a sensor in <code>SensorMode.AUTO</code> mode without a
+   * periodicity needs to continuously check for changes so it uses
+   * <code>CycleMode.POLLING</code>, while a sensor in
+   * <code>SensorMode.ON_REQUEST</code> mode only runs cycles when events
+   * arrive.
+   */
+  private void updateCycle() {
+    if (this.periodicity > 0) {
+      this.setCyclePeriod(this.delay);
+      this.setCycleMode(CycleMode.EVENT_DRIVEN);
+      this.updateSampling();
+    } else if (this.sensorMode == SensorMode.AUTO) {
+      this.cancelSampling();
+      this.setCyclePeriod(0);
+      this.setCycleMode(CycleMode.POLLING);
+    } else {
+      this.cancelSampling();
+      this.setCyclePeriod(0);
+      this.setCycleMode(CycleMode.EVENT_DRIVEN);
+    }
+  }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package robo.model.sensor.electric;
 
 import robo.model.MeasurementUnit;
+import robo.model.event.EventPool;
+import robo.model.event.sensor.electric.BatteryLevelSensorEvent;
 
 /**
  * The super class of any Battery Level Sensor device, no matter if it is a real
@@ -15,6 +17,13 @@ public abstract class BatteryLevelSensor extends ElectricSensor {
   // the level in percent: range from 0 to 100%
   protected double batteryLevel = 0;
   protected final MeasurementUnit.Generic unit = MeasurementUnit.Generic.PERCENT;
+  // the pool of the events triggered for the readings of the sensor
+  private final EventPool< BatteryLevelSensorEvent> readingEventPool = new EventPool< BatteryLevelSensorEvent>() {
+    @Override
+    protected BatteryLevelSensorEvent create() {
+      return new BatteryLevelSensorEvent(BatteryLevelSensor.this, 0);
+    }
+  };
 
   public double getBatteryLevel() {
     return this.batteryLevel;
@@ -31,4 +40,17 @@ public abstract class BatteryLevelSensor extends ElectricSensor {
   public BatteryLevelSensor() {
     super();
   }
+
+  /**
+   * Trigger a <code>BatteryLevelSensorEvent</code> with the latest battery
+   * level. The event is taken from the pool of the sensor, so the periodic
+   * readings create no garbage. The implementation classes call this method
+   * after each reading.
+   */
+  protected void triggerReadingEvent() {
+    BatteryLevelSensorEvent event = this.readingEventPool.acquire();
+    event.setBatteryLevel(this.batteryLevel);
+    this.trigger(event);
+    event.release();
+  }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package robo.model.sensor.electric;
 
 import robo.model.MeasurementUnit;
+import robo.model.event.EventPool;
+import robo.model.event.sensor.electric.VoltageSensorEvent;
 
 /**
  * The super class of any Voltage Sensor device, no matter if it is a real
@@ -15,6 +17,14 @@ public abstract class VoltageSensor extends ElectricSensor {
   protected double voltage = 0L;
   // this value must be overridden in the implementation class
   protected MeasurementUnit.Electric.Voltage unit = MeasurementUnit.Electric.Voltage.V;
+  // the pool of the events triggered for the readings of the sensor
+  private final EventPool< VoltageSensorEvent> readingEventPool = new EventPool< VoltageSensorEvent>() {
+    @Override
+    protected VoltageSensorEvent create() {
+      return new VoltageSensorEvent(VoltageSensor.this, 0,
+          VoltageSensor.this.unit);
+    }
+  };
 
   public MeasurementUnit.Electric.Voltage getUnit() {
     return this.unit;
@@ -31,4 +41,18 @@ public abstract class VoltageSensor extends ElectricSensor {
   public VoltageSensor() {
     super();
   }
+
+  /**
+   * Trigger a <code>VoltageSensorEvent</code> with the latest voltage. The
+   * event is taken from the pool of the sensor, so the periodic readings create
+   * no garbage. The implementation classes call this method after each
+   * reading.
+   */
+  protected void triggerReadingEvent() {
+    VoltageSensorEvent event = this.readingEventPool.acquire();
+    event.setVoltage(this.voltage);
+    event.setUnit(this.unit);
+    this.trigger(event);
+    event.release();
+  }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package robo.model.sensor.optical;
 
 import robo.model.MeasurementUnit;
+import robo.model.event.EventPool;
+import robo.model.event.sensor.optical.PhotoResistorSensorEvent;
 
 /**
  * The super class of any Photo Resistor Optical Sensor device, no matter if it
@@ -35,6 +37,14 @@ public abstract class PhotoResistorSensor extends OpticalSensor {
   // configuration. If other measurement method is used then this property can
   // be ignored.
   protected double inputVoltage = 0;
+  // the pool of the events triggered for the readings of the sensor
+  private final EventPool< PhotoResistorSensorEvent> readingEventPool = new EventPool< PhotoResistorSensorEvent>() {
+    @Override
+    protected PhotoResistorSensorEvent create() {
+      return new PhotoResistorSensorEvent(PhotoResistorSensor.this, -1,
+          PhotoResistorSensor.this.unit);
+    }
+  };
 
   public PhotoResistorSensor(String name) {
     super(name);
@@ -94,4 +104,19 @@ public abstract class PhotoResistorSensor extends OpticalSensor {
       this.inputVoltage = inputVoltage;
     }
   }
+
+  /**
+   * Trigger a <code>PhotoResistorSensorEvent</code> with the latest
+   * resistance. The event is taken from the pool of the sensor, so the
+   * periodic readings create no garbage. The implementation classes call this
+   * method after each reading.
+   */
+  protected void triggerReadingEvent() {
+    PhotoResistorSensorEvent event = this.readingEventPool.acquire();
+    event.setResistance(this.resistance);
+    event.setLightIntensity(-1);
+    event.setUnit(this.unit);
+    this.trigger(event);
+    event.release();
+  }
 }
\ No newline at end of file
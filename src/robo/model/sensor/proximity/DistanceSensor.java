@@ -1,6 +1,8 @@
 package robo.model.sensor.proximity;
 
 import robo.model.MeasurementUnit;
+import robo.model.event.EventPool;
+import robo.model.event.sensor.proximity.DistanceSensorEvent;
 
 /**
  * The super class of any Distance Sensor device, no matter if it is a real
@@ -26,6 +28,14 @@ public abstract class DistanceSensor extends ProximitySensor {
   // the highest limit (using the unit measurement units) for which the
   // proximity event will be triggered (mainly used in AUTO mode)
   protected double highLimitDistance = Double.MAX_VALUE;
+  // the pool of the events triggered for the readings of the sensor
+  private final EventPool< DistanceSensorEvent> readingEventPool = new EventPool< DistanceSensorEvent>() {
+    @Override
+    protected DistanceSensorEvent create() {
+      return new DistanceSensorEvent(DistanceSensor.this, -1,
+          DistanceSensor.this.unit);
+    }
+  };
 
   public DistanceSensor(String name) {
     super(name);
@@ -112,4 +122,18 @@ public abstract class DistanceSensor extends ProximitySensor {
       this.highLimitDistance = 0;
     }
   }
+
+  /**
+   * Trigger a <code>DistanceSensorEvent</code> with the latest distance (-1 if
+   * it is not in the allowed range). The event is taken from the pool of the
+   * sensor, so the periodic readings create no garbage. The implementation
+   * classes call this method after each reading.
+   */
+  protected void triggerReadingEvent() {
+    DistanceSensorEvent event = this.readingEventPool.acquire();
+    event.setDistance(this.getDistance());
+    event.setUnit(this.unit);
+    this.trigger(event);
+    event.release();
+  }
 }
\ No newline at end of file
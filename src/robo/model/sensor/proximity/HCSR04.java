@@ -61,10 +61,8 @@ public class HCSR04 extends DistanceSensor {
    *          the periodicity (number of reads per second)
    */
   public void setPeriodicity(float periodicity) {
-    super.setPeriodicity(periodicity);
-    if (this.periodicity > 50) {
-      this.periodicity = 50;
-    }
+    // the limit is applied before, so the readings delay is also limited
+    super.setPeriodicity(Math.min(periodicity, 50));
   }
 
   /**
@@ -112,6 +110,19 @@ public class HCSR04 extends DistanceSensor {
     }
   }
 
+  /**
+   * Trigger the reading of the sensor (i.e. the distance set during the cycle,
+   * for example by the rules emulating the sensor) at the end of each cycle
+   * in which a periodic reading is due.
+   */
+  @Override
+  public void onCycleEnds() {
+    super.onCycleEnds();
+    if (this.isSamplingCycle()) {
+      this.triggerReadingEvent();
+    }
+  }
+
   @Override
   public boolean isInRange() {
     return this.distance >= 0;
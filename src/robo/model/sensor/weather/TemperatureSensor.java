@@ -1,6 +1,8 @@
 package robo.model.sensor.weather;
 
 import robo.model.MeasurementUnit;
+import robo.model.event.EventPool;
+import robo.model.event.sensor.weather.TemperatureSensorEvent;
 import robo.model.sensor.Sensor;
 
 /**
@@ -18,6 +20,14 @@ public abstract class TemperatureSensor extends Sensor {
   protected double temperature = -275;
   // this value can be overridden in the implementation class
   protected MeasurementUnit.Thermic.Temperature unit = MeasurementUnit.Thermic.Temperature.Celsius;
+  // the pool of the events triggered for the readings of the sensor
+  private final EventPool< TemperatureSensorEvent> readingEventPool = new EventPool< TemperatureSensorEvent>() {
+    @Override
+    protected TemperatureSensorEvent create() {
+      return new TemperatureSensorEvent(TemperatureSensor.this, -275,
+          TemperatureSensor.this.unit);
+    }
+  };
 
   public MeasurementUnit.Thermic.Temperature getUnit() {
     return this.unit;
@@ -34,4 +44,18 @@ public abstract class TemperatureSensor extends Sensor {
   public TemperatureSensor() {
     super();
   }
+
+  /**
+   * Trigger a <code>TemperatureSensorEvent</code> with the latest temperature.
+   * The event is taken from the pool of the sensor, so the periodic readings
+   * create no garbage. The implementation classes call this method after each
+   * reading.
+   */
+  protected void triggerReadingEvent() {
+    TemperatureSensorEvent event = this.readingEventPool.acquire();
+    event.setTemperature(this.temperature);
+    event.setUnit(this.unit);
+    this.trigger(event);
+    event.release();
+  }
 }
\ No newline at end of file
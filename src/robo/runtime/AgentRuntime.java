@@ -0,0 +1,108 @@
+package robo.runtime;
+
+import robo.model.PhysicalAgent;
+
+/**
+ * Define the runtime used to execute the agents. The runtime decides on which
+ * threads the agent cycles are executed, while guaranteeing that the cycles of
+ * the same agent are never executed concurrently. The agents do not own their
+ * threads, instead they are handed to the runtime when started.
+ * 
+ * The default runtime is <code>ThreadAgentRuntime</code> (one thread for each
+ * agent). Another runtime can be set as default by using the
+ * <code>setDefaultRuntime</code> method or the <code>robo.runtime</code>
+ * system property (with the value <code>thread</code>, <code>pooled</code> or
+ * <code>virtual</code>), or it can be set for specific agents by using the
+ * <code>PhysicalAgent.setRuntime</code> method.
+ * 
+ * NOTE: the <code>SimulationAgentRuntime</code> can't be selected by the
+ * system property, because it has to install its virtual clock before the
+ * agents and their events are created, and because the caller has to drive
+ * the simulation. Instead, call
+ * <code>setDefaultRuntime(new SimulationAgentRuntime())</code> before
+ * creating the agents, then use the <code>run</code> methods of the runtime.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 11:02:44
+ * 
+ */
+public abstract class AgentRuntime {
+  // the name of the system property used to select the default runtime
+  public static final String RUNTIME_PROPERTY = "robo.runtime";
+  // the runtime used by all the agents which does not have their own runtime
+  private static AgentRuntime defaultRuntime = null;
+
+  /**
+   * Get the default runtime. If no default runtime was set, then the one
+   * specified by the <code>robo.runtime</code> system property is created, or
+   * a <code>ThreadAgentRuntime</code> if the property is not set.
+   * 
+   * @return the default runtime
+   */
+  public static synchronized AgentRuntime getDefaultRuntime() {
+    if (AgentRuntime.defaultRuntime == null) {
+      String runtimeName = System.getProperty(AgentRuntime.RUNTIME_PROPERTY);
+      if ("pooled".equalsIgnoreCase(runtimeName)) {
+        AgentRuntime.defaultRuntime = new PooledAgentRuntime();
+      } else if ("virtual".equalsIgnoreCase(runtimeName)) {
+        AgentRuntime.defaultRuntime = new VirtualThreadAgentRuntime();
+      } else {
+        AgentRuntime.defaultRuntime = new ThreadAgentRuntime();
+      }
+    }
+    return AgentRuntime.defaultRuntime;
+  }
+
+  /**
+   * Set the default runtime. This is used by all the agents which are started
+   * after this call and does not have their own runtime.
+   * 
+   * @param runtime
+   *          the new default runtime
+   */
+  public static synchronized void setDefaultRuntime(AgentRuntime runtime) {
+    AgentRuntime.defaultRuntime = runtime;
+  }
+
+  /**
+   * Create the activity used to execute the given agent. The activity is not
+   * started by this method, instead its <code>start</code> method must be
+   * called after the agent got the reference to the activity.
+   * 
+   * @param agent
+   *          the agent to be executed by this runtime
+   * @return the activity which executes the agent
+   */
+  public abstract Activity createActivity(PhysicalAgent agent);
+
+  /**
+   * Release the resources (e.g. threads) used by this runtime. The agents
+   * still running when this method is called are no longer executed.
+   */
+  public void shutdown() {
+    // nothing to do at this point, but this method can be overridden by the
+    // runtimes that owns resources.
+  }
+
+  /**
+   * Represents the execution of an agent by a runtime: the agent start up, its
+   * cycles and its shut down.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 11:02:44
+   * 
+   */
+  public interface Activity {
+    /**
+     * Start the agent activity: the agent is started up and its cycles are
+     * executed until the agent is stopped.
+     */
+    public void start();
+
+    /**
+     * Notify the activity that the agent has to execute a new cycle (e.g. an
+     * event arrived) or that it was stopped.
+     */
+    public void wakeUp();
+  }
+}
@@ -0,0 +1,67 @@
+package robo.runtime;
+
+/**
+ * The source of time used by the agents: the occurrence time of the events,
+ * the cycle periods, the cycle durations, etc. By default the system clock
+ * (i.e. the wall-clock time) is used, but another clock (e.g. the virtual
+ * clock of a <code>SimulationAgentRuntime</code>) can be set instead.
+ * 
+ * NOTE: the clock is shared by all the agents, so it has to be set before
+ * creating the agents and their events.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 17:58:12
+ * 
+ */
+public abstract class Clock {
+  // the clock using the system (wall-clock) time
+  public static final Clock SYSTEM = new Clock() {
+    @Override
+    public long currentTimeMillis() {
+      return System.currentTimeMillis();
+    }
+
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+  // the clock currently used by the agents
+  private static volatile Clock clock = Clock.SYSTEM;
+
+  /**
+   * Get the clock currently used by the agents.
+   * 
+   * @return the current clock
+   */
+  public static Clock getClock() {
+    return Clock.clock;
+  }
+
+  /**
+   * Set the clock used by the agents.
+   * 
+   * @param clock
+   *          the new clock (null means the system clock)
+   */
+  public static void setClock(Clock clock) {
+    Clock.clock = clock != null ? clock : Clock.SYSTEM;
+  }
+
+  /**
+   * Get the current time, in milliseconds since the epoch (as
+   * <code>System.currentTimeMillis</code> does).
+   * 
+   * @return the current time in milliseconds
+   */
+  public abstract long currentTimeMillis();
+
+  /**
+   * Get the current value of the high-resolution time source, in nanoseconds.
+   * As for <code>System.nanoTime</code>, the value can only be used to measure
+   * elapsed time.
+   * 
+   * @return the current value of the time source in nanoseconds
+   */
+  public abstract long nanoTime();
+}
@@ -0,0 +1,162 @@
+package robo.runtime;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import robo.model.PhysicalAgent;
+
+/**
+ * Runtime which multiplexes any number of agents over a small work-stealing
+ * pool of threads (by default, one thread for each available processor). Each
+ * agent cycle is executed as a task of the pool, and a new task is only
+ * submitted for an agent after the previous one ended, so the cycles of the
+ * same agent are executed one after the other. Timed cycles (e.g. the cycle
+ * period or the <code>CycleMode.POLLING</code> mode) are handled by a single
+ * timer thread which only submits the tasks to the pool.
+ * 
+ * NOTE: the threads of the pool are shared by all the agents, so agents that
+ * block for long periods in their cycles (e.g. reading hardware) delay the
+ * other agents. Such agents should use their own runtime (e.g.
+ * <code>ThreadAgentRuntime</code>).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 11:26:51
+ * 
+ */
+public class PooledAgentRuntime extends AgentRuntime {
+  // the pool of threads executing the agent cycles
+  private final ForkJoinPool pool;
+  // the timer used to submit the timed cycles
+  private final ScheduledThreadPoolExecutor timer;
+
+  /**
+   * Create a runtime which uses a pool with one thread for each available
+   * processor.
+   */
+  public PooledAgentRuntime() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create a runtime which uses a pool with a given number of threads.
+   * 
+   * @param parallelism
+   *          the number of threads of the pool
+   */
+  public PooledAgentRuntime(int parallelism) {
+    // the asynchronous (FIFO) mode is the one suited for event-style tasks
+    // which are never joined
+    this.pool = new ForkJoinPool(parallelism,
+        ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "robo-runtime-timer");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    this.timer.setRemoveOnCancelPolicy(true);
+  }
+
+  @Override
+  public Activity createActivity(PhysicalAgent agent) {
+    return new PooledActivity(agent);
+  }
+
+  @Override
+  public void shutdown() {
+    this.timer.shutdownNow();
+    this.pool.shutdownNow();
+  }
+
+  /**
+   * The activity of an agent executed by the pool. The activity itself is the
+   * task submitted to the pool, and the <code>scheduled</code> flag guarantees
+   * that at most one such task exists at any time.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 11:26:51
+   * 
+   */
+  private class PooledActivity implements Activity, Runnable {
+    private final PhysicalAgent agent;
+    // true while a task for this activity is submitted or is running
+    private final AtomicBoolean scheduled = new AtomicBoolean(true);
+    // the task used by the timer to wake up the agent
+    private final Runnable timeoutTask = new Runnable() {
+      @Override
+      public void run() {
+        wakeUp();
+      }
+    };
+    // the pending timed wake up (only used by the running task)
+    private ScheduledFuture< ?> timeout = null;
+    // flag showing that the agent start up was already executed
+    private boolean startedUp = false;
+    // flag showing that the agent activity ended
+    private volatile boolean finished = false;
+
+    private PooledActivity(PhysicalAgent agent) {
+      this.agent = agent;
+    }
+
+    @Override
+    public void start() {
+      pool.execute(this);
+    }
+
+    @Override
+    public void wakeUp() {
+      if (!this.finished && this.scheduled.compareAndSet(false, true)) {
+        pool.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      if (this.finished) {
+        return;
+      }
+      if (this.timeout != null) {
+        this.timeout.cancel(false);
+        this.timeout = null;
+      }
+      try {
+        if (!this.startedUp) {
+          this.startedUp = true;
+          if (!this.agent.runStartUp()) {
+            this.finished = true;
+            return;
+          }
+        } else if (this.agent.isRunning()) {
+          this.agent.runCycle();
+        }
+        if (!this.agent.isRunning()) {
+          this.finished = true;
+          this.agent.runShutDown();
+          return;
+        }
+      } catch (Exception e) {
+        this.finished = true;
+        this.agent.onFatalError(e);
+        return;
+      }
+      long delay = this.agent.getCycleDelay();
+      if (delay > 0) {
+        this.timeout = timer.schedule(this.timeoutTask, delay,
+            TimeUnit.NANOSECONDS);
+      }
+      this.scheduled.set(false);
+      // a wake up request may have arrived while the flag was still set, so
+      // the agent has to be checked once again
+      if (delay == 0 || this.agent.getCycleDelay() == 0) {
+        this.wakeUp();
+      }
+    }
+  }
+}
@@ -0,0 +1,258 @@
+package robo.runtime;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import robo.model.PhysicalAgent;
+
+/**
+ * Runtime used to simulate (emulated) agents in a deterministic way. All the
+ * agent cycles are executed, one after the other, by the thread calling the
+ * <code>run</code> methods, and the time is given by a virtual clock: when no
+ * agent has anything to do, the clock jumps directly to the next timed cycle
+ * (e.g. the next sensor reading), so a scenario spanning hours is simulated
+ * in seconds. Given the same agents and the same inputs, the cycles are
+ * always executed in the same order and at the same (virtual) times.
+ * 
+ * The virtual clock is set as the agents clock when the runtime is created,
+ * so the runtime must be created (and usually set as the default runtime, by
+ * using <code>AgentRuntime.setDefaultRuntime</code>) before the agents and
+ * their events. For the same reason, this runtime can't be selected by the
+ * <code>robo.runtime</code> system property. The system clock is restored by
+ * <code>shutdown</code>.
+ * 
+ * NOTE1: the cycles take no virtual time, so the agents must not use real
+ * waits (e.g. <code>Thread.sleep</code>) in their code, which would only
+ * slow down the simulation.
+ * 
+ * NOTE2: the agents are executed only while a <code>run</code> method is
+ * called. Events can be sent to the agents by other threads, but then the
+ * order in which they are processed is no longer deterministic.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 17:58:12
+ * 
+ */
+public class SimulationAgentRuntime extends AgentRuntime {
+  // the default start time of the virtual clock (2000-01-01T00:00:00Z), so
+  // the simulations are reproducible
+  public static final long DEFAULT_START_TIME = 946684800000L;
+  // the virtual clock used by the simulation
+  private final VirtualClock clock;
+  // the activities having a cycle to execute, in the order of their wake up
+  private final Queue< SimulationActivity> readyActivities = new ConcurrentLinkedQueue< SimulationActivity>();
+  // the timed wake ups, in the order of their (virtual) time
+  private final PriorityQueue< Timeout> timeouts = new PriorityQueue< Timeout>();
+  // the sequence number of the next timed wake up (used to keep the order of
+  // the wake ups requested for the same time)
+  private long timeoutSequence = 0;
+
+  /**
+   * Create a simulation runtime whose virtual clock starts at the default
+   * start time.
+   */
+  public SimulationAgentRuntime() {
+    this(SimulationAgentRuntime.DEFAULT_START_TIME);
+  }
+
+  /**
+   * Create a simulation runtime whose virtual clock starts at a given time.
+   * 
+   * @param startTime
+   *          the initial time of the virtual clock, in milliseconds since the
+   *          epoch
+   */
+  public SimulationAgentRuntime(long startTime) {
+    this.clock = new VirtualClock(startTime);
+    Clock.setClock(this.clock);
+  }
+
+  /**
+   * Get the virtual clock of the simulation.
+   * 
+   * @return the virtual clock
+   */
+  public VirtualClock getClock() {
+    return this.clock;
+  }
+
+  @Override
+  public Activity createActivity(PhysicalAgent agent) {
+    return new SimulationActivity(agent);
+  }
+
+  /**
+   * Run the simulation for a given (virtual) time. All the cycles due in this
+   * interval are executed, then the virtual clock is set to the end of the
+   * interval.
+   * 
+   * @param duration
+   *          the simulated time, in milliseconds
+   */
+  public void run(long duration) {
+    if (duration < 0) {
+      throw new IllegalArgumentException(
+          "Negative values are not allowed when calling SimulationAgentRuntime.run(duration)!");
+    }
+    long endTime = this.clock.nanoTime() + duration * 1000000L;
+    this.runUntil(endTime);
+    this.clock.advanceTo(endTime);
+  }
+
+  /**
+   * Run the simulation until no agent has anything left to do (i.e. all the
+   * agents wait for events which never come). Agents with periodic cycles
+   * (e.g. sensors) always have something to do, so for them
+   * <code>run(duration)</code> has to be used instead.
+   */
+  public void runUntilIdle() {
+    this.runUntil(Long.MAX_VALUE);
+  }
+
+  /**
+   * Helper method used to execute the cycles due until a given virtual time.
+   * 
+   * @param endTime
+   *          the virtual time (as given by the clock nanoTime) when the
+   *          simulation stops
+   */
+  private void runUntil(long endTime) {
+    while (true) {
+      SimulationActivity activity = this.readyActivities.poll();
+      if (activity != null) {
+        activity.runStep();
+        continue;
+      }
+      Timeout timeout = this.timeouts.peek();
+      if (timeout == null || timeout.time > endTime) {
+        return;
+      }
+      this.timeouts.poll();
+      // the wake up was cancelled if the activity ran in the meantime
+      if (timeout.activity.timeout == timeout) {
+        timeout.activity.timeout = null;
+        this.clock.advanceTo(timeout.time);
+        timeout.activity.wakeUp();
+      }
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    this.readyActivities.clear();
+    this.timeouts.clear();
+    if (Clock.getClock() == this.clock) {
+      Clock.setClock(Clock.SYSTEM);
+    }
+  }
+
+  /**
+   * A timed wake up of an activity.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 17:58:12
+   * 
+   */
+  private static class Timeout implements Comparable< Timeout> {
+    // the virtual time of the wake up
+    private final long time;
+    // the sequence number of the wake up
+    private final long sequence;
+    // the activity to wake up
+    private final SimulationActivity activity;
+
+    private Timeout(long time, long sequence, SimulationActivity activity) {
+      this.time = time;
+      this.sequence = sequence;
+      this.activity = activity;
+    }
+
+    @Override
+    public int compareTo(Timeout other) {
+      if (this.time != other.time) {
+        return this.time < other.time ? -1 : 1;
+      }
+      return this.sequence < other.sequence ? -1
+          : (this.sequence == other.sequence ? 0 : 1);
+    }
+  }
+
+  /**
+   * The activity of an agent executed by the simulation. The
+   * <code>scheduled</code> flag guarantees that the activity is at most once
+   * in the queue of the ready activities.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 17:58:12
+   * 
+   */
+  private class SimulationActivity implements Activity {
+    private final PhysicalAgent agent;
+    // true while the activity is in the queue of the ready activities
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    // the pending timed wake up (only used by the simulation thread)
+    private Timeout timeout = null;
+    // flag showing that the agent start up was already executed
+    private boolean startedUp = false;
+    // flag showing that the agent activity ended
+    private volatile boolean finished = false;
+
+    private SimulationActivity(PhysicalAgent agent) {
+      this.agent = agent;
+    }
+
+    @Override
+    public void start() {
+      this.wakeUp();
+    }
+
+    @Override
+    public void wakeUp() {
+      if (!this.finished && this.scheduled.compareAndSet(false, true)) {
+        readyActivities.offer(this);
+      }
+    }
+
+    /**
+     * Execute the agent start up or the next agent cycle, then schedule the
+     * next timed wake up (if any).
+     */
+    private void runStep() {
+      this.scheduled.set(false);
+      if (this.finished) {
+        return;
+      }
+      this.timeout = null;
+      try {
+        if (!this.startedUp) {
+          this.startedUp = true;
+          if (!this.agent.runStartUp()) {
+            this.finished = true;
+            return;
+          }
+        } else if (this.agent.isRunning()) {
+          this.agent.runCycle();
+        }
+        if (!this.agent.isRunning()) {
+          this.finished = true;
+          this.agent.runShutDown();
+          return;
+        }
+      } catch (Exception e) {
+        this.finished = true;
+        this.agent.onFatalError(e);
+        return;
+      }
+      long delay = this.agent.getCycleDelay();
+      if (delay == 0) {
+        this.wakeUp();
+      } else if (delay > 0) {
+        this.timeout = new Timeout(clock.nanoTime() + delay, timeoutSequence++,
+            this);
+        timeouts.add(this.timeout);
+      }
+    }
+  }
+}
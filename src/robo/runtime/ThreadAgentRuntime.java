@@ -0,0 +1,60 @@
+package robo.runtime;
+
+import java.util.concurrent.locks.LockSupport;
+
+import robo.model.PhysicalAgent;
+
+/**
+ * Runtime which executes each agent on its own (platform) thread. This is the
+ * default runtime and it is the right choice for a small number of agents or
+ * for agents that block for long periods (e.g. while reading hardware).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 11:14:05
+ * 
+ */
+public class ThreadAgentRuntime extends AgentRuntime {
+
+  @Override
+  public Activity createActivity(PhysicalAgent agent) {
+    return new ThreadActivity(this.newThread(agent));
+  }
+
+  /**
+   * Create the (not yet started) thread which executes the given agent.
+   * Subclasses can override this method to use other kinds of threads.
+   * 
+   * @param agent
+   *          the agent to be executed by the thread
+   * @return the thread which executes the agent
+   */
+  protected Thread newThread(PhysicalAgent agent) {
+    return new Thread(agent);
+  }
+
+  /**
+   * The activity of an agent executed on its own thread. The agent itself
+   * parks its thread between cycles, so waking it up means unparking it.
+   * 
+   * @author Mircea Diaconescu
+   * @date Oct 18, 2026, 11:14:05
+   * 
+   */
+  private static class ThreadActivity implements Activity {
+    private final Thread thread;
+
+    private ThreadActivity(Thread thread) {
+      this.thread = thread;
+    }
+
+    @Override
+    public void start() {
+      this.thread.start();
+    }
+
+    @Override
+    public void wakeUp() {
+      LockSupport.unpark(this.thread);
+    }
+  }
+}
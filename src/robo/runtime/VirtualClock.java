@@ -0,0 +1,50 @@
+package robo.runtime;
+
+/**
+ * A clock whose time only advances when it is explicitly requested (e.g. by
+ * a <code>SimulationAgentRuntime</code> when no agent has anything to do
+ * until the next timed cycle).
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 17:58:12
+ * 
+ */
+public class VirtualClock extends Clock {
+  // the time (in milliseconds since the epoch) when the clock was created
+  private final long startTime;
+  // the elapsed time (in nanoseconds) since the clock was created
+  private volatile long elapsedTime = 0;
+
+  /**
+   * Create a virtual clock.
+   * 
+   * @param startTime
+   *          the initial time of the clock, in milliseconds since the epoch
+   */
+  public VirtualClock(long startTime) {
+    this.startTime = startTime;
+  }
+
+  @Override
+  public long currentTimeMillis() {
+    return this.startTime + this.elapsedTime / 1000000L;
+  }
+
+  @Override
+  public long nanoTime() {
+    return this.elapsedTime;
+  }
+
+  /**
+   * Advance the time of the clock. The time never goes back, so the values
+   * lower than the current time are ignored.
+   * 
+   * @param nanoTime
+   *          the new time of the clock, as returned by <code>nanoTime</code>
+   */
+  public void advanceTo(long nanoTime) {
+    if (nanoTime > this.elapsedTime) {
+      this.elapsedTime = nanoTime;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package robo.runtime;
+
+import java.lang.reflect.Method;
+
+import robo.logger.DefaultLogger;
+import robo.model.PhysicalAgent;
+
+/**
+ * Runtime which executes each agent on its own virtual thread. This allows the
+ * agents to keep their simple blocking and sequential code (e.g. sleeps while
+ * reading sensors, blocking hardware initialization) without paying for one
+ * platform thread for each agent.
+ * 
+ * NOTE1: virtual threads are only available with Java 21 or newer, so they are
+ * obtained by using reflection (the library can still be used with older Java
+ * versions and on Android). If virtual threads are not available, then the
+ * agents are executed on platform threads, exactly as with the
+ * <code>ThreadAgentRuntime</code>.
+ * 
+ * NOTE2: the agents does not use <code>synchronized</code> blocks in the
+ * events processing and propagation paths, so virtual threads are not pinned
+ * to their carrier threads while waiting for them.
+ * 
+ * @author Mircea Diaconescu
+ * @date Oct 18, 2026, 12:05:37
+ * 
+ */
+public class VirtualThreadAgentRuntime extends ThreadAgentRuntime {
+  // the Thread.Builder.OfVirtual instance, null if not available
+  private final Object builder;
+  // the Thread.Builder.unstarted(Runnable) method, null if not available
+  private final Method unstartedMethod;
+
+  /**
+   * Create a virtual threads runtime. If the Java runtime does not support
+   * virtual threads, then platform threads are used.
+   */
+  public VirtualThreadAgentRuntime() {
+    Object builder = null;
+    Method unstartedMethod = null;
+    try {
+      builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      unstartedMethod = Class.forName("java.lang.Thread$Builder").getMethod(
+          "unstarted", Runnable.class);
+    } catch (Exception e) {
+      builder = null;
+      unstartedMethod = null;
+      DefaultLogger.getLogger().warn(
+          this.getClass().getSimpleName(),
+          "Virtual threads are not supported by this Java runtime, "
+              + "platform threads are used instead.");
+    }
+    this.builder = builder;
+    this.unstartedMethod = unstartedMethod;
+  }
+
+  /**
+   * Check if the agents are really executed on virtual threads.
+   * 
+   * @return true if virtual threads are supported, false if platform threads
+   *         are used instead
+   */
+  public boolean isVirtual() {
+    return this.builder != null;
+  }
+
+  @Override
+  protected Thread newThread(PhysicalAgent agent) {
+    if (this.builder != null) {
+      try {
+        return (Thread) this.unstartedMethod.invoke(this.builder, agent);
+      } catch (Exception e) {
+        DefaultLogger.getLogger().error(this.getClass().getSimpleName(), e);
+      }
+    }
+    return super.newThread(agent);
+  }
+}